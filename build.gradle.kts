@@ -41,7 +41,8 @@ dependencies {
 
 tasks {
     jar {
-        from(generateAdapterData)
+        // Only the main target's data is published, additional targets and reports stay in the build directory
+        from(generateAdapterData.flatMap { it.patchDataOutput }, generateAdapterData.flatMap { it.lvtOffsetDataOutput })
     }
 }
 
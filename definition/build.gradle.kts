@@ -1,6 +1,7 @@
 plugins {
     `java-library`
     `maven-publish`
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "dev.su5ed.sinytra.adapter"
@@ -44,6 +45,12 @@ dependencies {
     testImplementation("org.junit.jupiter:junit-jupiter")
 }
 
+jmh {
+    warmupIterations.set(2)
+    iterations.set(3)
+    fork.set(1)
+}
+
 tasks {
     jar {
         manifest.attributes(
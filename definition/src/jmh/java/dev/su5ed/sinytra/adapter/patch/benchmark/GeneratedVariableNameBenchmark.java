@@ -0,0 +1,63 @@
+package dev.su5ed.sinytra.adapter.patch.benchmark;
+
+import dev.su5ed.sinytra.adapter.patch.util.AdapterUtil;
+import org.objectweb.asm.Type;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GeneratedVariableNameBenchmark {
+    // A typical mix of locals found in Minecraft methods
+    private static final String[] NAMES = {"p_110986_", "i", "j1", "flag", "flag2", "blockpos", "blockpos$mutableblockpos", "level", "$$3", "this", "s", "s1", "entity", "d0", "f3", "alpha", "vec3"};
+    private static final Type[] TYPES = {Type.DOUBLE_TYPE, Type.INT_TYPE, Type.INT_TYPE, Type.BOOLEAN_TYPE, Type.BOOLEAN_TYPE,
+        Type.getObjectType("net/minecraft/core/BlockPos"), Type.getObjectType("net/minecraft/core/BlockPos$MutableBlockPos"), Type.getObjectType("net/minecraft/world/level/Level"),
+        Type.getObjectType("net/minecraft/world/entity/Entity"), Type.getObjectType("net/minecraft/client/renderer/LevelRenderer"), Type.getObjectType("java/lang/String"),
+        Type.getObjectType("java/lang/String"), Type.getObjectType("net/minecraft/world/entity/Entity"), Type.DOUBLE_TYPE, Type.FLOAT_TYPE, Type.FLOAT_TYPE,
+        Type.getObjectType("net/minecraft/world/phys/Vec3")};
+    // Precompiled like the patterns of the former GeneratedVarName
+    private static final Map<Type, Pattern> LEGACY_PATTERNS = Map.of(
+        Type.INT_TYPE, Pattern.compile("^(i|j|k|l)\\d*$"),
+        Type.BOOLEAN_TYPE, Pattern.compile("^(flag)\\d*$"),
+        Type.DOUBLE_TYPE, Pattern.compile("^(d)\\d*$"),
+        Type.FLOAT_TYPE, Pattern.compile("^(f)\\d*$"),
+        Type.getObjectType("java/lang/String"), Pattern.compile("^(s)\\d*$")
+    );
+
+    @Benchmark
+    public void classifier(Blackhole blackhole) {
+        for (int i = 0; i < NAMES.length; i++) {
+            blackhole.consume(AdapterUtil.isGeneratedVariableName(NAMES[i], TYPES[i]));
+        }
+    }
+
+    @Benchmark
+    public void legacyRegex(Blackhole blackhole) {
+        for (int i = 0; i < NAMES.length; i++) {
+            blackhole.consume(legacyIsGeneratedVariableName(NAMES[i], TYPES[i]));
+        }
+    }
+
+    // The regex-based implementation previously used by AdapterUtil
+    private static boolean legacyIsGeneratedVariableName(String name, Type type) {
+        if (name.startsWith("p_") || name.matches("^\\$\\$\\d+$")) {
+            return true;
+        }
+        Pattern generator = LEGACY_PATTERNS.get(type);
+        boolean knownGenerated = generator != null && generator.matcher(name).matches();
+        if (!knownGenerated && type.getSort() == Type.OBJECT && !name.equals("this")) {
+            String internalName = type.getInternalName();
+            int index = internalName.lastIndexOf('/');
+            String shortName = internalName.substring(index + 1).toLowerCase(Locale.ROOT);
+            String pattern = "^(\\Q%s\\E)\\d*$".formatted(shortName);
+            return name.matches(pattern);
+        }
+        return knownGenerated;
+    }
+}
@@ -0,0 +1,161 @@
+package dev.su5ed.sinytra.adapter.patch.benchmark;
+
+import com.mojang.datafixers.util.Pair;
+import dev.su5ed.sinytra.adapter.patch.analysis.ParameterEditScript;
+import dev.su5ed.sinytra.adapter.patch.analysis.ParametersDiff;
+import dev.su5ed.sinytra.adapter.patch.analysis.ParametersDiff.MethodParameter;
+import dev.su5ed.sinytra.adapter.patch.util.AdapterUtil;
+import org.objectweb.asm.Type;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParametersDiffBenchmark {
+    private static final Type[] PRIMITIVE_TYPES = {Type.INT_TYPE, Type.FLOAT_TYPE, Type.DOUBLE_TYPE, Type.BOOLEAN_TYPE, Type.LONG_TYPE};
+    private static final String[] PRIMITIVE_NAMES = {"i", "f", "d", "flag", "k"};
+    private static final String[] OBJECT_TYPES = {"net/minecraft/core/BlockPos", "net/minecraft/core/BlockPos$MutableBlockPos", "net/minecraft/world/level/Level",
+        "net/minecraft/world/entity/Entity", "com/mojang/blaze3d/vertex/PoseStack", "net/minecraft/world/phys/Vec3", "net/minecraft/client/Camera",
+        "net/minecraft/client/renderer/culling/Frustum", "net/minecraft/util/profiling/ProfilerFiller", "net/minecraft/client/renderer/MultiBufferSource$BufferSource",
+        "com/mojang/blaze3d/vertex/VertexConsumer", "net/minecraft/world/level/block/state/BlockState", "net/minecraft/world/level/block/entity/BlockEntity",
+        "net/minecraft/client/renderer/RenderType", "org/joml/Matrix4f", "java/util/Iterator", "java/util/List", "java/lang/String", "net/minecraft/server/level/BlockDestructionProgress",
+        "net/minecraft/client/renderer/LevelRenderer$RenderChunkInfo", "net/minecraft/client/renderer/chunk/ChunkRenderDispatcher$RenderChunk", "net/minecraft/world/phys/AABB",
+        "net/minecraft/world/phys/HitResult", "net/minecraft/client/renderer/LightTexture"};
+    // Local variable table sizes ranging from regular methods to the largest ones, such as LevelRenderer#renderLevel
+    @Param({"16", "64", "160"})
+    public int locals;
+    // Most tables are either unchanged or only gain locals, in a single run or scattered across the table.
+    // Insertions mixed with removed and replaced locals push the greedy scan out of alignment.
+    @Param({"none", "block", "insert", "mixed"})
+    public String edits;
+
+    private List<MethodParameter> clean;
+    private List<MethodParameter> dirty;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        this.clean = new ArrayList<>();
+        for (int i = 0; i < this.locals; i++) {
+            this.clean.add(randomLocal(random, i));
+        }
+        // Copied like a separately read class file, so that types are only equal and not identical
+        this.dirty = new ArrayList<>();
+        for (MethodParameter param : this.clean) {
+            this.dirty.add(new MethodParameter(Type.getType(new String(param.type().getDescriptor().toCharArray())), param.isGeneratedType()));
+        }
+        if (this.edits.equals("none")) {
+            return;
+        }
+        // Patched methods usually gain a handful of named locals
+        int changes = Math.max(1, this.locals / 16);
+        if (this.edits.equals("block")) {
+            int index = random.nextInt(this.dirty.size());
+            for (int i = 0; i < changes; i++) {
+                this.dirty.add(index + i, new MethodParameter("forgeLocal" + i, randomLocal(random, i).type()));
+            }
+            return;
+        }
+        for (int i = 0; i < changes; i++) {
+            this.dirty.add(random.nextInt(this.dirty.size()), new MethodParameter("forgeLocal" + i, randomLocal(random, i).type()));
+        }
+        if (this.edits.equals("mixed")) {
+            for (int i = 0; i < changes; i++) {
+                this.dirty.remove(random.nextInt(this.dirty.size()));
+                this.dirty.set(random.nextInt(this.dirty.size()), new MethodParameter("replaced" + i, Type.getType("Lnet/minecraft/world/level/material/FluidState;")));
+            }
+        }
+    }
+
+    // Local variables as read from a class file, with types parsed from their descriptors
+    private static MethodParameter randomLocal(Random random, int index) {
+        if (random.nextBoolean()) {
+            int primitive = random.nextInt(PRIMITIVE_TYPES.length);
+            return new MethodParameter(PRIMITIVE_NAMES[primitive] + index, PRIMITIVE_TYPES[primitive]);
+        }
+        String internalName = OBJECT_TYPES[random.nextInt(OBJECT_TYPES.length)];
+        String name = internalName.substring(internalName.lastIndexOf('/') + 1).toLowerCase(Locale.ROOT);
+        return new MethodParameter(index % 3 == 0 ? name : name + index, Type.getType("L" + internalName + ";"));
+    }
+
+    @Benchmark
+    public ParameterEditScript editScript() {
+        return ParameterEditScript.compute(this.clean, this.dirty, true);
+    }
+
+    @Benchmark
+    public ParametersDiff legacyGreedy() {
+        return legacyCompareParameters(this.clean, this.dirty, true);
+    }
+
+    // The greedy look-ahead comparison previously used by ParametersDiff
+    private static ParametersDiff legacyCompareParameters(List<MethodParameter> cleanParameters, List<MethodParameter> dirtyParameters, boolean lvtIndexes) {
+        List<Pair<Integer, Type>> insertions = new ArrayList<>();
+        List<Pair<Integer, Type>> replacements = new ArrayList<>();
+        List<Pair<Integer, Integer>> swaps = new ArrayList<>();
+        List<Integer> removals = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        int lvtIndex = 0;
+        outer:
+        while (j < dirtyParameters.size()) {
+            boolean skipJIncr = false;
+            if (i < cleanParameters.size()) {
+                MethodParameter cleanParam = cleanParameters.get(i);
+                MethodParameter dirtyParam = dirtyParameters.get(j);
+                boolean sameType = cleanParam.type().equals(dirtyParam.type());
+                if (!sameType || !cleanParam.matchName(dirtyParam)) {
+                    boolean handled = false;
+                    boolean removing = false;
+                    if (i + 1 < cleanParameters.size() && j + 1 < dirtyParameters.size()) {
+                        MethodParameter nextCleanParam = cleanParameters.get(i + 1);
+                        MethodParameter nextDirtyParam = dirtyParameters.get(j + 1);
+                        if (nextCleanParam.type().equals(dirtyParam.type()) && nextDirtyParam.equals(cleanParam)) {
+                            swaps.add(Pair.of(j, j + 1));
+                            i++;
+                            lvtIndex++;
+                            j++;
+                            handled = true;
+                        }
+                        if (nextCleanParam.equals(dirtyParam) && (j + 2 >= cleanParameters.size() || cleanParameters.get(j + 2).equals(nextDirtyParam))) {
+                            removing = true;
+                        }
+                    }
+                    if (!handled) {
+                        for (int k = j + 1; k < dirtyParameters.size(); k++) {
+                            MethodParameter dirtyParamAhead = dirtyParameters.get(k);
+                            if (cleanParam.type().equals(dirtyParamAhead.type()) && (sameType || cleanParam.matchName(dirtyParamAhead))) {
+                                for (; j < k; j++, lvtIndex++) {
+                                    insertions.add(Pair.of(lvtIndex, dirtyParameters.get(j).type()));
+                                }
+                                continue outer;
+                            }
+                        }
+                        if (removing) {
+                            removals.add(j);
+                            skipJIncr = true;
+                        } else if (!cleanParam.type().equals(dirtyParam.type())) {
+                            replacements.add(Pair.of(lvtIndex, dirtyParam.type()));
+                        }
+                    }
+                }
+                i++;
+                lvtIndex += lvtIndexes ? AdapterUtil.getLVTOffsetForType(dirtyParam.type()) : 1;
+            } else {
+                Type type = dirtyParameters.get(j).type();
+                insertions.add(Pair.of(lvtIndex, type));
+                lvtIndex += lvtIndexes ? AdapterUtil.getLVTOffsetForType(type) : 1;
+            }
+            if (!skipJIncr) {
+                j++;
+            }
+        }
+        return new ParametersDiff(i, insertions, replacements, swaps, removals);
+    }
+}
@@ -8,9 +8,8 @@ import dev.su5ed.sinytra.adapter.patch.serialization.MethodTransformSerializatio
 import dev.su5ed.sinytra.adapter.patch.transformer.DisableMixin;
 import dev.su5ed.sinytra.adapter.patch.transformer.ModifyInjectionPoint;
 import dev.su5ed.sinytra.adapter.patch.transformer.RedirectShadowMethod;
-import dev.su5ed.sinytra.adapter.patch.util.MethodQualifier;
+import dev.su5ed.sinytra.adapter.patch.util.MethodReference;
 import org.jetbrains.annotations.Nullable;
-import org.objectweb.asm.tree.AnnotationNode;
 import org.objectweb.asm.tree.InsnList;
 import org.objectweb.asm.tree.MethodInsnNode;
 import org.objectweb.asm.tree.MethodNode;
@@ -38,10 +37,10 @@ public final class ClassPatchInstance extends PatchInstance {
     private final List<InjectionPointMatcher> targetInjectionPoints;
 
     private ClassPatchInstance(List<String> targetClasses, List<MethodMatcher> targetMethods, List<InjectionPointMatcher> targetInjectionPoints, List<String> targetAnnotations, List<MethodTransform> transforms) {
-        this(targetClasses, targetMethods, targetInjectionPoints, targetAnnotations, map -> true, List.of(), transforms);
+        this(targetClasses, targetMethods, targetInjectionPoints, targetAnnotations, null, List.of(), transforms);
     }
 
-    private ClassPatchInstance(List<String> targetClasses, List<MethodMatcher> targetMethods, List<InjectionPointMatcher> targetInjectionPoints, List<String> targetAnnotations, Predicate<Map<String, AnnotationValueHandle<?>>> targetAnnotationValues, List<ClassTransform> classTransforms, List<MethodTransform> transforms) {
+    private ClassPatchInstance(List<String> targetClasses, List<MethodMatcher> targetMethods, List<InjectionPointMatcher> targetInjectionPoints, List<String> targetAnnotations, @Nullable Predicate<Map<String, AnnotationValueHandle<?>>> targetAnnotationValues, List<ClassTransform> classTransforms, List<MethodTransform> transforms) {
         super(targetClasses, targetAnnotations, targetAnnotationValues, classTransforms, transforms);
 
         this.targetMethods = targetMethods;
@@ -56,52 +55,73 @@ public final class ClassPatchInstance extends PatchInstance {
     protected boolean checkAnnotation(String owner, MethodNode method, AnnotationHandle methodAnnotation, PatchEnvironment remaper, MethodContext.Builder builder) {
         builder.methodAnnotation(methodAnnotation);
         if (methodAnnotation.matchesDesc(Patch.OVERWRITE)) {
-            return this.targetMethods.isEmpty() || this.targetMethods.stream().anyMatch(matcher -> matcher.matches(method.name, method.desc));
+            return matchesTargetMethod(method.name, method.desc);
         } else if (KNOWN_MIXIN_TYPES.contains(methodAnnotation.getDesc())) {
-            return methodAnnotation.<List<String>>getValue("method")
-                .map(value -> {
-                    for (String target : value.get()) {
-                        String remappedTarget = remaper.remap(owner, target);
-                        MethodQualifier qualifier = MethodQualifier.create(remappedTarget).filter(q -> q.name() != null).orElse(null);
-                        if (qualifier == null) {
-                            continue;
-                        }
-                        String targetName = qualifier.name();
-                        String targetDesc = qualifier.desc();
-                        return (this.targetMethods.isEmpty() || this.targetMethods.stream().anyMatch(matcher -> matcher.matches(targetName, targetDesc)))
-                            // Must call checkInjectionPoint first so that any present @At annotation is added to the method context builder
-                            && (checkInjectionPoint(owner, methodAnnotation, remaper, builder) || this.targetInjectionPoints.isEmpty());
+            List<String> targets = methodAnnotation.getRawValue("method");
+            if (targets != null) {
+                for (String target : targets) {
+                    String remappedTarget = remaper.remap(owner, target);
+                    MethodReference reference = MethodReference.parse(remappedTarget);
+                    if (reference == null || reference.name() == null) {
+                        continue;
                     }
-                    return false;
-                })
-                .orElse(false);
+                    String targetName = PatchEnvironment.remapReference(reference.name());
+                    return matchesTargetMethod(targetName, reference.desc())
+                        // Must call checkInjectionPoint first so that any present @At annotation is added to the method context builder
+                        && (checkInjectionPoint(owner, methodAnnotation, remaper, builder) || this.targetInjectionPoints.isEmpty());
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesTargetMethod(String name, @Nullable String desc) {
+        if (this.targetMethods.isEmpty()) {
+            return true;
+        }
+        for (MethodMatcher matcher : this.targetMethods) {
+            if (matcher.matches(name, desc)) {
+                return true;
+            }
         }
         return false;
     }
 
     private boolean checkInjectionPoint(String owner, AnnotationHandle methodAnnotation, PatchEnvironment environment, MethodContext.Builder builder) {
-        return methodAnnotation.getNested("at")
-            .map(node -> checkInjectionPointAnnotation(owner, node, environment, builder))
-            // Check slice.from target
-            .or(() -> methodAnnotation.<AnnotationNode>getValue("slice")
-                .flatMap(slice -> slice.findNested("from")
-                    .map(from -> checkInjectionPointAnnotation(owner, from, environment, builder))))
-            .orElse(false);
+        AnnotationHandle injectionPoint = methodAnnotation.getNestedOrNull("at");
+        if (injectionPoint != null) {
+            return checkInjectionPointAnnotation(owner, injectionPoint, environment, builder);
+        }
+        // Check slice.from target
+        AnnotationHandle slice = methodAnnotation.getNestedOrNull("slice");
+        AnnotationHandle sliceFrom = slice != null ? slice.getNestedOrNull("from") : null;
+        return sliceFrom != null && checkInjectionPointAnnotation(owner, sliceFrom, environment, builder);
     }
 
     private boolean checkInjectionPointAnnotation(String owner, AnnotationHandle injectionPointAnnotation, PatchEnvironment environment, MethodContext.Builder builder) {
-        return injectionPointAnnotation.<String>getValue("target")
-            .map(target -> {
-                AnnotationValueHandle<String> value = injectionPointAnnotation.<String>getValue("value").orElse(null);
-                String valueStr = value != null ? value.get() : null;
-                String targetStr = environment.remap(owner, target.get());
-                if (this.targetInjectionPoints.isEmpty() || this.targetInjectionPoints.stream().anyMatch(pred -> pred.test(valueStr, targetStr))) {
-                    builder.injectionPointAnnotation(injectionPointAnnotation);
-                    return true;
-                }
-                return false;
-            })
-            .orElse(false);
+        String target = injectionPointAnnotation.getRawValue("target");
+        if (target == null) {
+            return false;
+        }
+        String value = injectionPointAnnotation.getRawValue("value");
+        String remappedTarget = environment.remap(owner, target);
+        if (matchesInjectionPoint(value, remappedTarget)) {
+            builder.injectionPointAnnotation(injectionPointAnnotation);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean matchesInjectionPoint(@Nullable String value, String target) {
+        if (this.targetInjectionPoints.isEmpty()) {
+            return true;
+        }
+        for (InjectionPointMatcher matcher : this.targetInjectionPoints) {
+            if (matcher.test(value, target)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     protected static class ClassPatchBuilderImpl extends BaseBuilder<ClassPatchBuilder> implements ClassPatchBuilder {
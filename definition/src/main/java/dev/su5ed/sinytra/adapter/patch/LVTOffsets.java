@@ -1,19 +1,25 @@
 package dev.su5ed.sinytra.adapter.patch;
 
 import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonWriter;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.JsonOps;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
+import dev.su5ed.sinytra.adapter.patch.util.ExtraCodecs;
 import dev.su5ed.sinytra.adapter.patch.util.MethodQualifier;
 
-import java.util.List;
-import java.util.Map;
-import java.util.OptionalInt;
+import java.io.IOException;
+import java.util.*;
 
 public record LVTOffsets(Map<String, Map<MethodQualifier, List<Offset>>> offsets, Map<String, Map<MethodQualifier, List<Swap>>> reorders) {
+    private static final Codec<Map<MethodQualifier, List<Offset>>> CLASS_OFFSETS_CODEC = Codec.unboundedMap(MethodQualifier.CODEC, Offset.CODEC.listOf());
+    private static final Codec<Map<MethodQualifier, List<Swap>>> CLASS_REORDERS_CODEC = Codec.unboundedMap(MethodQualifier.CODEC, Swap.CODEC.listOf());
+    // Output order of methods within a class, classes are sorted by name
+    private static final Comparator<MethodQualifier> METHOD_ORDER = Comparator.comparing(MethodQualifier::name, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+        .thenComparing(MethodQualifier::desc, Comparator.nullsFirst(Comparator.naturalOrder()));
     public static final Codec<LVTOffsets> CODEC = RecordCodecBuilder.create(instance -> instance.group(
-        Codec.unboundedMap(Codec.STRING, Codec.unboundedMap(MethodQualifier.CODEC, Offset.CODEC.listOf())).fieldOf("offsets").forGetter(LVTOffsets::offsets),
-        Codec.unboundedMap(Codec.STRING, Codec.unboundedMap(MethodQualifier.CODEC, Swap.CODEC.listOf())).fieldOf("reorders").forGetter(LVTOffsets::reorders)
+        Codec.unboundedMap(Codec.STRING, CLASS_OFFSETS_CODEC).fieldOf("offsets").forGetter(LVTOffsets::offsets),
+        Codec.unboundedMap(Codec.STRING, CLASS_REORDERS_CODEC).fieldOf("reorders").forGetter(LVTOffsets::reorders)
     ).apply(instance, LVTOffsets::new));
 
     public record Offset(int index, int amount) {
@@ -65,8 +71,46 @@ public record LVTOffsets(Map<String, Map<MethodQualifier, List<Offset>>> offsets
         }).getFirst();
     }
 
+    // Copy with classes and methods in a canonical order, so that equal offsets are always serialized to the same JSON
+    public LVTOffsets sorted() {
+        return new LVTOffsets(sortClasses(this.offsets), sortClasses(this.reorders));
+    }
+
+    private static <T> Map<String, Map<MethodQualifier, List<T>>> sortClasses(Map<String, Map<MethodQualifier, List<T>>> classes) {
+        Map<String, Map<MethodQualifier, List<T>>> sorted = new TreeMap<>();
+        classes.forEach((cls, methods) -> {
+            Map<MethodQualifier, List<T>> sortedMethods = new TreeMap<>(METHOD_ORDER);
+            sortedMethods.putAll(methods);
+            sorted.put(cls, sortedMethods);
+        });
+        return sorted;
+    }
+
+    // Writes the same JSON as toJson, encoding one class at a time instead of building the whole tree first
+    public void write(JsonWriter writer) throws IOException {
+        LVTOffsets sorted = sorted();
+        writer.beginObject();
+        writer.name("offsets");
+        writeClasses(writer, sorted.offsets, CLASS_OFFSETS_CODEC);
+        writer.name("reorders");
+        writeClasses(writer, sorted.reorders, CLASS_REORDERS_CODEC);
+        writer.endObject();
+    }
+
+    private static <T> void writeClasses(JsonWriter writer, Map<String, Map<MethodQualifier, List<T>>> classes, Codec<Map<MethodQualifier, List<T>>> codec) throws IOException {
+        writer.beginObject();
+        for (Map.Entry<String, Map<MethodQualifier, List<T>>> entry : classes.entrySet()) {
+            JsonElement json = codec.encodeStart(JsonOps.INSTANCE, entry.getValue()).getOrThrow(false, s -> {
+                throw new RuntimeException("Error serializing lvt offsets: " + s);
+            });
+            writer.name(entry.getKey());
+            ExtraCodecs.writeJson(writer, json);
+        }
+        writer.endObject();
+    }
+
     public JsonElement toJson() {
-        return CODEC.encodeStart(JsonOps.INSTANCE, this).getOrThrow(false, s -> {
+        return CODEC.encodeStart(JsonOps.INSTANCE, sorted()).getOrThrow(false, s -> {
             throw new RuntimeException("Error serializing lvt offsets: " + s);
         });
     }
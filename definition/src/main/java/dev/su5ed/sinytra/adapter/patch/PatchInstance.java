@@ -1,6 +1,5 @@
 package dev.su5ed.sinytra.adapter.patch;
 
-import com.mojang.datafixers.util.Pair;
 import com.mojang.serialization.Codec;
 import dev.su5ed.sinytra.adapter.patch.selector.AnnotationHandle;
 import dev.su5ed.sinytra.adapter.patch.selector.AnnotationValueHandle;
@@ -33,10 +32,10 @@ public abstract sealed class PatchInstance implements Patch permits ClassPatchIn
     protected final List<MethodTransform> transforms;
 
     protected PatchInstance(List<String> targetClasses, List<String> targetAnnotations, List<MethodTransform> transforms) {
-        this(targetClasses, targetAnnotations, map -> true, List.of(), transforms);
+        this(targetClasses, targetAnnotations, null, List.of(), transforms);
     }
 
-    protected PatchInstance(List<String> targetClasses, List<String> targetAnnotations, Predicate<Map<String, AnnotationValueHandle<?>>> targetAnnotationValues, List<ClassTransform> classTransforms, List<MethodTransform> transforms) {
+    protected PatchInstance(List<String> targetClasses, List<String> targetAnnotations, @Nullable Predicate<Map<String, AnnotationValueHandle<?>>> targetAnnotationValues, List<ClassTransform> classTransforms, List<MethodTransform> transforms) {
         this.targetClasses = targetClasses;
         this.targetAnnotations = targetAnnotations;
         this.targetAnnotationValues = targetAnnotationValues;
@@ -49,56 +48,67 @@ public abstract sealed class PatchInstance implements Patch permits ClassPatchIn
     @Override
     public Result apply(ClassNode classNode, PatchEnvironment environment) {
         Result result = Result.PASS;
-        PatchContext context = new PatchContext(classNode, environment);
-        Pair<Boolean, @Nullable AnnotationValueHandle<?>> classTarget = checkClassTarget(classNode);
-        if (classTarget.getFirst()) {
-            AnnotationValueHandle<?> classAnnotation = classTarget.getSecond();
-            for (ClassTransform classTransform : this.classTransforms) {
-                result = result.or(classTransform.apply(classNode, classTarget.getSecond(), environment));
+        AnnotationValueHandle<?> classAnnotation = null;
+        AnnotationHandle mixinAnnotation = findMixinAnnotation(classNode);
+        if (mixinAnnotation != null) {
+            classAnnotation = findClassTarget(mixinAnnotation);
+            if (classAnnotation == null) {
+                return result;
             }
-            for (MethodNode method : classNode.methods) {
-                MethodContext methodContext = checkMethodTarget(classAnnotation, classNode.name, method, environment);
-                if (methodContext != null) {
-                    for (MethodTransform transform : this.transforms) {
-                        Collection<String> accepted = transform.getAcceptedAnnotations();
-                        if (accepted.isEmpty() || accepted.contains(methodContext.methodAnnotation().getDesc())) {
-                            result = result.or(transform.apply(classNode, method, methodContext, context));
-                        }
+        } else if (!this.targetClasses.isEmpty()) {
+            return result;
+        }
+        PatchContext context = new PatchContext(classNode, environment);
+        for (ClassTransform classTransform : this.classTransforms) {
+            result = result.or(classTransform.apply(classNode, classAnnotation, environment));
+        }
+        for (MethodNode method : classNode.methods) {
+            MethodContext methodContext = checkMethodTarget(classAnnotation, classNode.name, method, environment);
+            if (methodContext != null) {
+                for (MethodTransform transform : this.transforms) {
+                    Collection<String> accepted = transform.getAcceptedAnnotations();
+                    if (accepted.isEmpty() || accepted.contains(methodContext.methodAnnotation().getDesc())) {
+                        result = result.or(transform.apply(classNode, method, methodContext, context));
                     }
                 }
             }
-            context.run();
         }
+        context.run();
         return result;
     }
 
-    private Pair<Boolean, @Nullable AnnotationValueHandle<?>> checkClassTarget(ClassNode classNode) {
+    @Nullable
+    private static AnnotationHandle findMixinAnnotation(ClassNode classNode) {
         if (classNode.invisibleAnnotations != null) {
             for (AnnotationNode annotation : classNode.invisibleAnnotations) {
                 if (annotation.desc.equals(MIXIN_ANN)) {
-                    return PatchInstance.<List<Type>>findAnnotationValue(annotation.values, "value")
-                        .<Pair<Boolean, AnnotationValueHandle<?>>>map(types -> {
-                            for (Type targetType : types.get()) {
-                                if (this.targetClasses.isEmpty() || this.targetClasses.contains(targetType.getInternalName())) {
-                                    return Pair.of(true, types);
-                                }
-                            }
-                            return null;
-                        })
-                        .or(() -> PatchInstance.<List<String>>findAnnotationValue(annotation.values, "targets")
-                            .map(types -> {
-                                for (String targetType : types.get()) {
-                                    if (this.targetClasses.isEmpty() || this.targetClasses.contains(targetType)) {
-                                        return Pair.of(true, types);
-                                    }
-                                }
-                                return null;
-                            }))
-                        .orElse(Pair.of(false, null));
+                    return new AnnotationHandle(annotation);
                 }
             }
         }
-        return Pair.of(this.targetClasses.isEmpty(), null);
+        return null;
+    }
+
+    // Returns the matched mixin target value, or null if none of the mixin's targets match
+    @Nullable
+    private AnnotationValueHandle<?> findClassTarget(AnnotationHandle mixinAnnotation) {
+        List<Type> types = mixinAnnotation.getRawValue("value");
+        if (types != null) {
+            for (Type targetType : types) {
+                if (this.targetClasses.isEmpty() || this.targetClasses.contains(targetType.getInternalName())) {
+                    return mixinAnnotation.getValueHandle("value");
+                }
+            }
+        }
+        List<String> targets = mixinAnnotation.getRawValue("targets");
+        if (targets != null) {
+            for (String targetType : targets) {
+                if (this.targetClasses.isEmpty() || this.targetClasses.contains(targetType)) {
+                    return mixinAnnotation.getValueHandle("targets");
+                }
+            }
+        }
+        return null;
     }
 
     @Nullable
@@ -0,0 +1,288 @@
+package dev.su5ed.sinytra.adapter.patch.analysis;
+
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+// Immutable hierarchy index of a set of classes, answering subtype queries in constant time from any thread.
+// Ids are assigned in pre-order of the superclass tree, so the subclasses of each class occupy a contiguous id interval.
+// Interfaces are numbered separately, and each class stores the set of all interfaces it implements as a bitset.
+public final class ClassHierarchy {
+    private static final int FORMAT_VERSION = 1;
+    private static final long[] NO_INTERFACES = new long[0];
+
+    private final String[] names;
+    private final Object2IntMap<String> ids;
+    // Direct superclass id, or -1 if it is not part of the hierarchy
+    private final int[] superIds;
+    // Direct interface ids that are part of the hierarchy
+    private final int[][] interfaceIds;
+    private final boolean[] isInterface;
+    // Last id of each class' subclass interval
+    private final int[] subclassEnd;
+    // Interface number of each class, or -1 for regular classes
+    private final int[] interfaceIndex;
+    // Class id of each interface number
+    private final int[] interfaceClasses;
+    // Transitively implemented interfaces, shared between classes that don't declare any additional ones
+    private final long[][] interfaces;
+
+    private ClassHierarchy(String[] names, Object2IntMap<String> ids, int[] superIds, int[][] interfaceIds, boolean[] isInterface) {
+        this.names = names;
+        this.ids = ids;
+        this.superIds = superIds;
+        this.interfaceIds = interfaceIds;
+        this.isInterface = isInterface;
+        int count = names.length;
+
+        // Ids are in pre-order, so walking them backwards visits all subclasses before their superclass
+        this.subclassEnd = new int[count];
+        for (int id = count - 1; id >= 0; id--) {
+            this.subclassEnd[id] = Math.max(this.subclassEnd[id], id);
+            int superId = superIds[id];
+            if (superId != -1) {
+                this.subclassEnd[superId] = Math.max(this.subclassEnd[superId], this.subclassEnd[id]);
+            }
+        }
+
+        this.interfaceIndex = new int[count];
+        int interfaceCount = 0;
+        for (int id = 0; id < count; id++) {
+            this.interfaceIndex[id] = isInterface[id] ? interfaceCount++ : -1;
+        }
+        this.interfaceClasses = new int[interfaceCount];
+        for (int id = 0; id < count; id++) {
+            if (this.interfaceIndex[id] != -1) {
+                this.interfaceClasses[this.interfaceIndex[id]] = id;
+            }
+        }
+        this.interfaces = new long[count][];
+        int words = (interfaceCount + 63) >>> 6;
+        boolean[] visiting = new boolean[count];
+        for (int id = 0; id < count; id++) {
+            computeInterfaces(id, words, visiting);
+        }
+    }
+
+    private long[] computeInterfaces(int id, int words, boolean[] visiting) {
+        long[] computed = this.interfaces[id];
+        if (computed != null) {
+            return computed;
+        }
+        // Guard against malformed cyclic hierarchies
+        if (visiting[id]) {
+            return NO_INTERFACES;
+        }
+        visiting[id] = true;
+        int superId = this.superIds[id];
+        long[] inherited = superId != -1 ? computeInterfaces(superId, words, visiting) : NO_INTERFACES;
+        long[] result = inherited;
+        if (this.interfaceIds[id].length > 0) {
+            result = Arrays.copyOf(inherited, words);
+            for (int itf : this.interfaceIds[id]) {
+                int index = this.interfaceIndex[itf];
+                if (index != -1) {
+                    result[index >>> 6] |= 1L << index;
+                }
+                long[] itfInterfaces = computeInterfaces(itf, words, visiting);
+                for (int i = 0; i < itfInterfaces.length; i++) {
+                    result[i] |= itfInterfaces[i];
+                }
+            }
+        }
+        visiting[id] = false;
+        this.interfaces[id] = result;
+        return result;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return this.names.length;
+    }
+
+    public boolean contains(String name) {
+        return this.ids.containsKey(name);
+    }
+
+    // Whether parent is a proper supertype of child, with both classes being part of the hierarchy
+    public boolean isSubtype(String child, String parent) {
+        int childId = this.ids.getInt(child);
+        int parentId = this.ids.getInt(parent);
+        if (childId == -1 || parentId == -1 || childId == parentId) {
+            return false;
+        }
+        if (parentId < childId && childId <= this.subclassEnd[parentId]) {
+            return true;
+        }
+        int index = this.interfaceIndex[parentId];
+        if (index == -1) {
+            return false;
+        }
+        long[] childInterfaces = this.interfaces[childId];
+        int word = index >>> 6;
+        return word < childInterfaces.length && (childInterfaces[word] & 1L << index) != 0;
+    }
+
+    // All supertypes of a class that are part of the hierarchy
+    public List<String> getSupertypes(String name) {
+        int id = this.ids.getInt(name);
+        if (id == -1) {
+            return List.of();
+        }
+        List<String> supertypes = new ArrayList<>();
+        for (int superId = this.superIds[id]; superId != -1 && supertypes.size() < this.names.length; superId = this.superIds[superId]) {
+            supertypes.add(this.names[superId]);
+        }
+        long[] classInterfaces = this.interfaces[id];
+        for (int word = 0; word < classInterfaces.length; word++) {
+            for (long bits = classInterfaces[word]; bits != 0; bits &= bits - 1) {
+                int index = (word << 6) + Long.numberOfTrailingZeros(bits);
+                supertypes.add(this.names[this.interfaceClasses[index]]);
+            }
+        }
+        return supertypes;
+    }
+
+    public void write(DataOutput output) throws IOException {
+        output.writeInt(FORMAT_VERSION);
+        output.writeInt(this.names.length);
+        for (String name : this.names) {
+            output.writeUTF(name);
+        }
+        for (int id = 0; id < this.names.length; id++) {
+            output.writeBoolean(this.isInterface[id]);
+            output.writeInt(this.superIds[id]);
+            output.writeShort(this.interfaceIds[id].length);
+            for (int itf : this.interfaceIds[id]) {
+                output.writeInt(itf);
+            }
+        }
+    }
+
+    public static ClassHierarchy read(DataInput input) throws IOException {
+        int version = input.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported class hierarchy format version " + version);
+        }
+        int count = input.readInt();
+        String[] names = new String[count];
+        Object2IntMap<String> ids = new Object2IntOpenHashMap<>(count);
+        ids.defaultReturnValue(-1);
+        for (int id = 0; id < count; id++) {
+            names[id] = input.readUTF();
+            ids.put(names[id], id);
+        }
+        int[] superIds = new int[count];
+        int[][] interfaceIds = new int[count][];
+        boolean[] isInterface = new boolean[count];
+        for (int id = 0; id < count; id++) {
+            isInterface[id] = input.readBoolean();
+            superIds[id] = input.readInt();
+            interfaceIds[id] = new int[input.readUnsignedShort()];
+            for (int i = 0; i < interfaceIds[id].length; i++) {
+                interfaceIds[id][i] = input.readInt();
+            }
+        }
+        return new ClassHierarchy(names, ids, superIds, interfaceIds, isInterface);
+    }
+
+    public static class Builder {
+        private record Entry(@Nullable String superName, String[] interfaces, boolean isInterface) {}
+
+        private final Map<String, Entry> entries;
+
+        public Builder() {
+            this.entries = new HashMap<>();
+        }
+
+        private Builder(Map<String, Entry> entries) {
+            this.entries = new HashMap<>(entries);
+        }
+
+        // Independent builder starting out with the classes added so far, allowing one set of classes to be shared by several hierarchies
+        public Builder copy() {
+            return new Builder(this.entries);
+        }
+
+        // Reads the class header only. Classes added later replace existing ones with the same name.
+        public Builder add(ClassReader reader) {
+            return add(reader.getClassName(), reader.getSuperName(), reader.getInterfaces(), reader.getAccess());
+        }
+
+        public Builder add(String name, @Nullable String superName, String[] interfaces, int access) {
+            this.entries.put(name, new Entry(superName, interfaces, (access & Opcodes.ACC_INTERFACE) != 0));
+            return this;
+        }
+
+        public ClassHierarchy build() {
+            // Sort names so that the same classes always get the same ids
+            List<String> sorted = new ArrayList<>(this.entries.keySet());
+            Collections.sort(sorted);
+            Map<String, List<String>> subclasses = new HashMap<>();
+            List<String> roots = new ArrayList<>();
+            for (String name : sorted) {
+                String superName = this.entries.get(name).superName();
+                if (superName != null && this.entries.containsKey(superName)) {
+                    subclasses.computeIfAbsent(superName, s -> new ArrayList<>()).add(name);
+                } else {
+                    roots.add(name);
+                }
+            }
+
+            int count = sorted.size();
+            String[] names = new String[count];
+            Object2IntMap<String> ids = new Object2IntOpenHashMap<>(count);
+            ids.defaultReturnValue(-1);
+            Deque<String> stack = new ArrayDeque<>();
+            // Classes in superclass cycles are unreachable from roots, and become roots themselves
+            List<String> pending = new ArrayList<>(roots);
+            pending.addAll(sorted);
+            int next = 0;
+            for (String root : pending) {
+                if (ids.containsKey(root)) {
+                    continue;
+                }
+                stack.push(root);
+                while (!stack.isEmpty()) {
+                    String name = stack.pop();
+                    if (ids.containsKey(name)) {
+                        continue;
+                    }
+                    names[next] = name;
+                    ids.put(name, next++);
+                    List<String> children = subclasses.getOrDefault(name, List.of());
+                    for (int i = children.size() - 1; i >= 0; i--) {
+                        stack.push(children.get(i));
+                    }
+                }
+            }
+
+            int[] superIds = new int[count];
+            int[][] interfaceIds = new int[count][];
+            boolean[] isInterface = new boolean[count];
+            for (int id = 0; id < count; id++) {
+                Entry entry = this.entries.get(names[id]);
+                superIds[id] = entry.superName() != null ? ids.getInt(entry.superName()) : -1;
+                interfaceIds[id] = Arrays.stream(entry.interfaces()).mapToInt(ids::getInt).filter(i -> i != -1).toArray();
+                isInterface[id] = entry.isInterface();
+            }
+            // A superclass outside the subclass interval can only come from a cycle, which is cut off here
+            for (int id = 0; id < count; id++) {
+                if (superIds[id] >= id) {
+                    superIds[id] = -1;
+                }
+            }
+            return new ClassHierarchy(names, ids, superIds, interfaceIds, isInterface);
+        }
+    }
+}
@@ -0,0 +1,433 @@
+package dev.su5ed.sinytra.adapter.patch.analysis;
+
+import com.mojang.datafixers.util.Pair;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.Type;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Primitive edit script between two parameter lists. Parameters are interned into int codes of their type and generated name flag,
+// aligned using a linear-space Myers LCS, and the unaligned runs in between become swaps, replacements, insertions and removals.
+// Indices follow the same conventions as ParametersDiff.
+public final class ParameterEditScript {
+    private static final int[] NO_INDICES = new int[0];
+    private static final Type[] NO_TYPES = new Type[0];
+
+    private final int originalCount;
+    private final int[] insertionIndices;
+    private final Type[] insertionTypes;
+    private final int[] replacementIndices;
+    private final Type[] replacementTypes;
+    // Swaps always exchange a param with the one following it
+    private final int[] swapFrom;
+    private final int[] removals;
+
+    private ParameterEditScript(int originalCount, int[] insertionIndices, Type[] insertionTypes, int[] replacementIndices, Type[] replacementTypes, int[] swapFrom, int[] removals) {
+        this.originalCount = originalCount;
+        this.insertionIndices = insertionIndices;
+        this.insertionTypes = insertionTypes;
+        this.replacementIndices = replacementIndices;
+        this.replacementTypes = replacementTypes;
+        this.swapFrom = swapFrom;
+        this.removals = removals;
+    }
+
+    public static ParameterEditScript compute(Type[] cleanTypes, Type[] dirtyTypes, boolean lvtIndexes) {
+        return compute(cleanTypes, null, dirtyTypes, null, lvtIndexes);
+    }
+
+    public static ParameterEditScript compute(List<ParametersDiff.MethodParameter> cleanParameters, List<ParametersDiff.MethodParameter> dirtyParameters, boolean lvtIndexes) {
+        int cleanCount = cleanParameters.size();
+        Type[] cleanTypes = new Type[cleanCount];
+        boolean[] cleanGenerated = new boolean[cleanCount];
+        for (int i = 0; i < cleanCount; i++) {
+            ParametersDiff.MethodParameter param = cleanParameters.get(i);
+            cleanTypes[i] = param.type();
+            cleanGenerated[i] = param.isGeneratedType();
+        }
+        int dirtyCount = dirtyParameters.size();
+        Type[] dirtyTypes = new Type[dirtyCount];
+        boolean[] dirtyGenerated = new boolean[dirtyCount];
+        for (int i = 0; i < dirtyCount; i++) {
+            ParametersDiff.MethodParameter param = dirtyParameters.get(i);
+            dirtyTypes[i] = param.type();
+            dirtyGenerated[i] = param.isGeneratedType();
+        }
+        return compute(cleanTypes, cleanGenerated, dirtyTypes, dirtyGenerated, lvtIndexes);
+    }
+
+    public static ParameterEditScript compute(Type[] cleanTypes, @Nullable boolean[] cleanGenerated, Type[] dirtyTypes, @Nullable boolean[] dirtyGenerated, boolean lvtIndexes) {
+        int n = cleanTypes.length;
+        int m = dirtyTypes.length;
+        // Most tables are identical or only gain params, which are resolved in a single pass without interning anything
+        if (n <= m) {
+            ParameterEditScript insertions = insertionsOnly(cleanTypes, cleanGenerated, dirtyTypes, dirtyGenerated, lvtIndexes);
+            if (insertions != null) {
+                return insertions;
+            }
+        }
+        // Common prefixes and suffixes are always aligned
+        int prefix = 0;
+        while (prefix < n && prefix < m && sameParam(cleanTypes, cleanGenerated, prefix, dirtyTypes, dirtyGenerated, prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < n - prefix && suffix < m - prefix && sameParam(cleanTypes, cleanGenerated, n - suffix - 1, dirtyTypes, dirtyGenerated, m - suffix - 1)) {
+            suffix++;
+        }
+
+        int cleanEnd = n - suffix;
+        int dirtyEnd = m - suffix;
+        // Intern params into codes of their type id and generated name flag, so that the LCS only compares ints.
+        // The prefix is never compared again, and the aligned suffix shares its codes with the clean side.
+        Object2IntMap<String> typeIds = new Object2IntOpenHashMap<>();
+        int[] cleanCodes = new int[n];
+        int[] dirtyCodes = new int[m];
+        encode(cleanTypes, cleanGenerated, prefix, n, cleanCodes, typeIds);
+        encode(dirtyTypes, dirtyGenerated, prefix, dirtyEnd, dirtyCodes, typeIds);
+        System.arraycopy(cleanCodes, cleanEnd, dirtyCodes, dirtyEnd, suffix);
+
+        // Aligned dirty index + 1 for each clean param and vice versa, or 0 if unaligned
+        int[] cleanMatch = new int[n];
+        int[] dirtyMatch = new int[m];
+        Lcs lcs = new Lcs(cleanCodes, dirtyCodes, cleanMatch, dirtyMatch);
+        for (int k = 0; k < prefix; k++) {
+            lcs.add(k, k);
+        }
+        lcs.compare(prefix, cleanEnd, prefix, dirtyEnd);
+        for (int k = 0; k < suffix; k++) {
+            lcs.add(cleanEnd + k, dirtyEnd + k);
+        }
+
+        // Each dirty param produces at most one insertion or replacement, and each clean param at most one removal
+        int[] insertionIndices = new int[m];
+        Type[] insertionTypes = new Type[m];
+        int insertions = 0;
+        int[] replacementIndices = new int[m];
+        Type[] replacementTypes = new Type[m];
+        int replacements = 0;
+        int[] swapFrom = new int[m / 2];
+        int swaps = 0;
+        int[] removals = new int[n];
+        int removalCount = 0;
+        int i = prefix;
+        int j = prefix;
+        int lvtIndex = lvtOffset(dirtyTypes, prefix, lvtIndexes);
+        // The dirty params drive the walk, trailing clean params without a dirty counterpart are left unconsumed
+        while (j < m) {
+            if (i < n && cleanMatch[i] == j + 1) {
+                lvtIndex += lvtSize(dirtyCodes[j], lvtIndexes);
+                i++;
+                j++;
+            }
+            // Detect swapped params. As in the greedy scan, params of the same type are swapped if only one of them has a generated name.
+            // Params aligned further ahead indicate an insertion or removal instead.
+            else if (i + 1 < n && j + 1 < m && cleanCodes[i] != dirtyCodes[j] && sameType(cleanCodes[i + 1], dirtyCodes[j]) && cleanCodes[i] == dirtyCodes[j + 1]
+                && cleanMatch[i + 1] <= j + 2 && dirtyMatch[j] <= i + 2
+            ) {
+                swapFrom[swaps++] = j;
+                lvtIndex += lvtSize(dirtyCodes[j], lvtIndexes) + lvtSize(dirtyCodes[j + 1], lvtIndexes);
+                i += 2;
+                j += 2;
+            } else {
+                // Alignments passed over by a swap no longer count
+                boolean cleanAligned = i < n && cleanMatch[i] > j;
+                boolean dirtyAligned = dirtyMatch[j] > i;
+                // Pair up unaligned params on both sides, the rest are insertions or removals
+                if (i < n && !cleanAligned && !dirtyAligned) {
+                    if (!sameType(cleanCodes[i], dirtyCodes[j])) {
+                        replacementIndices[replacements] = lvtIndex;
+                        replacementTypes[replacements++] = dirtyTypes[j];
+                    }
+                    lvtIndex += lvtSize(dirtyCodes[j], lvtIndexes);
+                    i++;
+                    j++;
+                } else if (!dirtyAligned) {
+                    insertionIndices[insertions] = lvtIndex;
+                    insertionTypes[insertions++] = dirtyTypes[j];
+                    lvtIndex += lvtSize(dirtyCodes[j], lvtIndexes);
+                    j++;
+                } else {
+                    // Like the greedy scan this replaced, the index advances by the size of the current dirty param
+                    removals[removalCount++] = j;
+                    lvtIndex += lvtSize(dirtyCodes[j], lvtIndexes);
+                    i++;
+                }
+            }
+        }
+        return new ParameterEditScript(i, Arrays.copyOf(insertionIndices, insertions), Arrays.copyOf(insertionTypes, insertions),
+            Arrays.copyOf(replacementIndices, replacements), Arrays.copyOf(replacementTypes, replacements), Arrays.copyOf(swapFrom, swaps), Arrays.copyOf(removals, removalCount));
+    }
+
+    // Matches each clean param to the earliest equal dirty param. If all of them match, the clean params are a subsequence of the dirty ones
+    // and the alignment is as long as it gets, so the unmatched dirty params are exactly the insertions. Returns null otherwise.
+    @Nullable
+    private static ParameterEditScript insertionsOnly(Type[] cleanTypes, @Nullable boolean[] cleanGenerated, Type[] dirtyTypes, @Nullable boolean[] dirtyGenerated, boolean lvtIndexes) {
+        int n = cleanTypes.length;
+        int m = dirtyTypes.length;
+        int expected = m - n;
+        int[] insertionIndices = expected == 0 ? NO_INDICES : new int[expected];
+        Type[] insertionTypes = expected == 0 ? NO_TYPES : new Type[expected];
+        int insertions = 0;
+        int i = 0;
+        int lvtIndex = 0;
+        for (int j = 0; j < m; j++) {
+            Type type = dirtyTypes[j];
+            if (i < n && sameParam(cleanTypes, cleanGenerated, i, dirtyTypes, dirtyGenerated, j)) {
+                i++;
+            } else {
+                if (insertions == expected) {
+                    return null;
+                }
+                insertionIndices[insertions] = lvtIndex;
+                insertionTypes[insertions++] = type;
+            }
+            lvtIndex += lvtSizeOfSort(type.getSort(), lvtIndexes);
+        }
+        return new ParameterEditScript(n, insertionIndices, insertionTypes, NO_INDICES, NO_TYPES, NO_INDICES, NO_INDICES);
+    }
+
+    public int originalCount() {
+        return this.originalCount;
+    }
+
+    public int insertionCount() {
+        return this.insertionIndices.length;
+    }
+
+    public int insertionIndex(int insertion) {
+        return this.insertionIndices[insertion];
+    }
+
+    public Type insertionType(int insertion) {
+        return this.insertionTypes[insertion];
+    }
+
+    public int replacementCount() {
+        return this.replacementIndices.length;
+    }
+
+    public int replacementIndex(int replacement) {
+        return this.replacementIndices[replacement];
+    }
+
+    public Type replacementType(int replacement) {
+        return this.replacementTypes[replacement];
+    }
+
+    public int swapCount() {
+        return this.swapFrom.length;
+    }
+
+    public int swapFrom(int swap) {
+        return this.swapFrom[swap];
+    }
+
+    public int swapTo(int swap) {
+        return this.swapFrom[swap] + 1;
+    }
+
+    public int removalCount() {
+        return this.removals.length;
+    }
+
+    public int removal(int removal) {
+        return this.removals[removal];
+    }
+
+    public boolean isEmpty() {
+        return this.insertionIndices.length == 0 && this.replacementIndices.length == 0 && this.swapFrom.length == 0 && this.removals.length == 0;
+    }
+
+    public ParametersDiff toParametersDiff() {
+        List<Pair<Integer, Type>> insertions = new ArrayList<>(this.insertionIndices.length);
+        for (int i = 0; i < this.insertionIndices.length; i++) {
+            insertions.add(Pair.of(this.insertionIndices[i], this.insertionTypes[i]));
+        }
+        List<Pair<Integer, Type>> replacements = new ArrayList<>(this.replacementIndices.length);
+        for (int i = 0; i < this.replacementIndices.length; i++) {
+            replacements.add(Pair.of(this.replacementIndices[i], this.replacementTypes[i]));
+        }
+        List<Pair<Integer, Integer>> swaps = new ArrayList<>(this.swapFrom.length);
+        for (int i = 0; i < this.swapFrom.length; i++) {
+            swaps.add(Pair.of(this.swapFrom[i], this.swapFrom[i] + 1));
+        }
+        List<Integer> removals = new ArrayList<>(this.removals.length);
+        for (int removal : this.removals) {
+            removals.add(removal);
+        }
+        // Diffs may be shared through the ParametersDiff cache, so they must not be modified
+        return new ParametersDiff(this.originalCount, Collections.unmodifiableList(insertions), Collections.unmodifiableList(replacements),
+            Collections.unmodifiableList(swaps), Collections.unmodifiableList(removals));
+    }
+
+    private static void encode(Type[] types, @Nullable boolean[] generated, int from, int to, int[] codes, Object2IntMap<String> typeIds) {
+        for (int i = from; i < to; i++) {
+            Type type = types[i];
+            int id = type.getSort();
+            // Primitive types are identified by their sort
+            if (id >= Type.ARRAY) {
+                // Types parsed from a local variable descriptor return it as-is, along with its cached hash code
+                String desc = type.getDescriptor();
+                id = typeIds.getOrDefault(desc, -1);
+                if (id == -1) {
+                    id = Type.METHOD + 1 + typeIds.size();
+                    typeIds.put(desc, id);
+                }
+            }
+            codes[i] = id << 1 | (generated != null && generated[i] ? 1 : 0);
+        }
+    }
+
+    // Same as comparing the codes of both params
+    private static boolean sameParam(Type[] cleanTypes, @Nullable boolean[] cleanGenerated, int i, Type[] dirtyTypes, @Nullable boolean[] dirtyGenerated, int j) {
+        if ((cleanGenerated != null && cleanGenerated[i]) != (dirtyGenerated != null && dirtyGenerated[j])) {
+            return false;
+        }
+        Type cleanType = cleanTypes[i];
+        Type dirtyType = dirtyTypes[j];
+        int sort = cleanType.getSort();
+        // Descriptors are compared as strings, which is much faster than Type#equals
+        return sort == dirtyType.getSort() && (sort < Type.ARRAY || cleanType.getDescriptor().equals(dirtyType.getDescriptor()));
+    }
+
+    private static int lvtOffset(Type[] types, int count, boolean lvtIndexes) {
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+            offset += lvtSizeOfSort(types[i].getSort(), lvtIndexes);
+        }
+        return offset;
+    }
+
+    private static boolean sameType(int code, int otherCode) {
+        return code >>> 1 == otherCode >>> 1;
+    }
+
+    private static int lvtSize(int code, boolean lvtIndexes) {
+        return lvtSizeOfSort(code >>> 1, lvtIndexes);
+    }
+
+    private static int lvtSizeOfSort(int sort, boolean lvtIndexes) {
+        return lvtIndexes && (sort == Type.LONG || sort == Type.DOUBLE) ? 2 : 1;
+    }
+
+    // Linear space variant of Myers' O(ND) algorithm, which bisects the edit graph at the middle snake and recurses on both halves
+    private static final class Lcs {
+        private final int[] a;
+        private final int[] b;
+        private final int[] matchA;
+        private final int[] matchB;
+        // Furthest reaching paths by diagonal, allocated once the first non-trivial range is known
+        private int[] forward;
+        private int[] backward;
+        private int offset;
+        // Start point of the last found middle snake
+        private int snakeStartX;
+        private int snakeStartY;
+
+        Lcs(int[] a, int[] b, int[] matchA, int[] matchB) {
+            this.a = a;
+            this.b = b;
+            this.matchA = matchA;
+            this.matchB = matchB;
+        }
+
+        void compare(int aStart, int aEnd, int bStart, int bEnd) {
+            // Common prefixes and suffixes are always part of the LCS
+            while (aStart < aEnd && bStart < bEnd && this.a[aStart] == this.b[bStart]) {
+                add(aStart++, bStart++);
+            }
+            int suffix = 0;
+            while (aStart < aEnd && bStart < bEnd && this.a[aEnd - 1] == this.b[bEnd - 1]) {
+                aEnd--;
+                bEnd--;
+                suffix++;
+            }
+            if (aStart < aEnd && bStart < bEnd) {
+                int n = aEnd - aStart;
+                int m = bEnd - bStart;
+                if (this.forward == null) {
+                    // Nested ranges are always smaller than the first one
+                    this.offset = n + m + 1;
+                    this.forward = new int[2 * this.offset + 1];
+                    this.backward = new int[2 * this.offset + 1];
+                }
+                long snake = middleSnake(aStart, n, bStart, m);
+                int snakeX = (int) (snake >>> 32);
+                int snakeY = (int) snake;
+                int snakeStartX = this.snakeStartX;
+                int snakeStartY = this.snakeStartY;
+                compare(aStart, aStart + snakeStartX, bStart, bStart + snakeStartY);
+                for (int x = snakeStartX, y = snakeStartY; x < snakeX; x++, y++) {
+                    add(aStart + x, bStart + y);
+                }
+                compare(aStart + snakeX, aEnd, bStart + snakeY, bEnd);
+            }
+            for (int k = 0; k < suffix; k++) {
+                add(aEnd + k, bEnd + k);
+            }
+        }
+
+        // Returns the end point of the middle snake packed into a long, its start is stored in snakeStartX/Y
+        private long middleSnake(int aStart, int n, int bStart, int m) {
+            int[] a = this.a;
+            int[] b = this.b;
+            int[] forward = this.forward;
+            int[] backward = this.backward;
+            int offset = this.offset;
+            int delta = n - m;
+            boolean odd = (delta & 1) != 0;
+            forward[offset + 1] = 0;
+            backward[offset + 1] = 0;
+            int maxD = (n + m + 1) / 2;
+            for (int d = 0; d <= maxD; d++) {
+                for (int k = -d; k <= d; k += 2) {
+                    int x = k == -d || k != d && forward[offset + k - 1] < forward[offset + k + 1] ? forward[offset + k + 1] : forward[offset + k - 1] + 1;
+                    int y = x - k;
+                    int startX = x;
+                    int startY = y;
+                    while (x < n && y < m && a[aStart + x] == b[bStart + y]) {
+                        x++;
+                        y++;
+                    }
+                    forward[offset + k] = x;
+                    int reverseK = delta - k;
+                    if (odd && reverseK >= -(d - 1) && reverseK <= d - 1 && x >= n - backward[offset + reverseK]) {
+                        this.snakeStartX = startX;
+                        this.snakeStartY = startY;
+                        return (long) x << 32 | y & 0xFFFFFFFFL;
+                    }
+                }
+                for (int k = -d; k <= d; k += 2) {
+                    int x = k == -d || k != d && backward[offset + k - 1] < backward[offset + k + 1] ? backward[offset + k + 1] : backward[offset + k - 1] + 1;
+                    int y = x - k;
+                    int startX = x;
+                    int startY = y;
+                    while (x < n && y < m && a[aStart + n - x - 1] == b[bStart + m - y - 1]) {
+                        x++;
+                        y++;
+                    }
+                    backward[offset + k] = x;
+                    int forwardK = delta - k;
+                    if (!odd && forwardK >= -d && forwardK <= d && forward[offset + forwardK] >= n - x) {
+                        // Convert the reverse snake back into forward coordinates
+                        this.snakeStartX = n - x;
+                        this.snakeStartY = m - y;
+                        return (long) (n - startX) << 32 | (m - startY) & 0xFFFFFFFFL;
+                    }
+                }
+            }
+            throw new IllegalStateException("No middle snake found");
+        }
+
+        private void add(int aIndex, int bIndex) {
+            this.matchA[aIndex] = bIndex + 1;
+            this.matchB[bIndex] = aIndex + 1;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package dev.su5ed.sinytra.adapter.patch.analysis;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ListMultimap;
 import com.mojang.datafixers.util.Pair;
@@ -17,10 +19,18 @@ import org.objectweb.asm.tree.MethodNode;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Stream;
 
 public record ParametersDiff(int originalCount, List<Pair<Integer, Type>> insertions, List<Pair<Integer, Type>> replacements, List<Pair<Integer, Integer>> swaps,
                              List<Integer> removals) {
+    private static final ParametersDiff EMPTY = new ParametersDiff(-1, List.of(), List.of(), List.of(), List.of());
+    // The same signature change is compared for every caller, replaced call and mixin targeting it.
+    // Results are keyed by the parameter descriptors and generated name flags, and shared between all of them.
+    private static final Cache<DiffKey, ParametersDiff> CACHE = CacheBuilder.newBuilder()
+        .maximumSize(8192)
+        .build();
+
+    private record DiffKey(String clean, String dirty, boolean lvtIndexes) {}
+
     public record MethodParameter(Type type, boolean isGeneratedType) {
         public MethodParameter(@Nullable String name, Type type) {
             this(type, name != null && AdapterUtil.isGeneratedVariableName(name, type));
@@ -37,7 +47,7 @@ public record ParametersDiff(int originalCount, List<Pair<Integer, Type>> insert
 
     public static ParametersDiff compareMethodParameters(MethodNode clean, MethodNode dirty) {
         if (clean.localVariables == null || dirty.localVariables == null) {
-            return new ParametersDiff(-1, List.of(), List.of(), List.of(), List.of());
+            return EMPTY;
         }
 
         int cleanParamCount = Type.getArgumentTypes(clean.desc).length;
@@ -65,97 +75,43 @@ public record ParametersDiff(int originalCount, List<Pair<Integer, Type>> insert
     }
 
     public static ParametersDiff compareTypeParameters(Type[] parameterTypes, Type[] newParameterTypes, boolean lvtIndexes) {
-        List<MethodParameter> cleanParameters = Stream.of(parameterTypes)
-            .map(type -> new MethodParameter(null, type))
-            .toList();
-        List<MethodParameter> dirtyParameters = Stream.of(newParameterTypes)
-            .map(type -> new MethodParameter(null, type))
-            .toList();
-        return compareParameters(cleanParameters, dirtyParameters, lvtIndexes);
+        DiffKey key = new DiffKey(parameterKey(parameterTypes), parameterKey(newParameterTypes), lvtIndexes);
+        return CACHE.asMap().computeIfAbsent(key, k -> ParameterEditScript.compute(parameterTypes, newParameterTypes, lvtIndexes).toParametersDiff());
+    }
+
+    // Compares the parameters of two method descriptors, keyed by their descriptors directly
+    public static ParametersDiff compareTypeParameters(String cleanMethodDesc, String dirtyMethodDesc) {
+        DiffKey key = new DiffKey(parameterKey(cleanMethodDesc), parameterKey(dirtyMethodDesc), false);
+        return CACHE.asMap().computeIfAbsent(key, k -> ParameterEditScript.compute(Type.getArgumentTypes(cleanMethodDesc), Type.getArgumentTypes(dirtyMethodDesc), false).toParametersDiff());
     }
 
     public static ParametersDiff compareParameters(List<MethodParameter> cleanParameters, List<MethodParameter> dirtyParameters, boolean lvtIndexes) {
-        // Indexes we insert new params at
-        List<Pair<Integer, Type>> insertions = new ArrayList<>();
-        // Indexes we replace params at
-        List<Pair<Integer, Type>> replacements = new ArrayList<>();
-        // Indexes to swap one for another
-        List<Pair<Integer, Integer>> swaps = new ArrayList<>();
-        List<Integer> removals = new ArrayList<>();
-        int i = 0;
-        int j = 0;
-        int lvtIndex = 0;
-        // New params are expected to be at least the same size as the old ones, so we use them for the outer loop
-        outer:
-        while (j < dirtyParameters.size()) {
-            boolean skipJIncr = false;
-            // Start iterating over the original params
-            if (i < cleanParameters.size()) {
-                MethodParameter cleanParam = cleanParameters.get(i);
-                MethodParameter dirtyParam = dirtyParameters.get(j);
-                // Check if old and new params at this index are the same
-                boolean sameType = cleanParam.type.equals(dirtyParam.type);
-                if (!sameType || !cleanParam.matchName(dirtyParam)) {
-                    boolean handled = false;
-                    boolean removing = false;
-                    // Check if the params have been swapped
-                    if (i + 1 < cleanParameters.size() && j + 1 < dirtyParameters.size()) {
-                        MethodParameter nextCleanParam = cleanParameters.get(i + 1);
-                        MethodParameter nextDirtyParam = dirtyParameters.get(j + 1);
-                        // Detect swapped params
-                        if (nextCleanParam.type.equals(dirtyParam.type) && nextDirtyParam.equals(cleanParam)) {
-                            swaps.add(Pair.of(j, j + 1));
-                            i++;
-                            lvtIndex++;
-                            j++;
-                            handled = true;
-                        }
-                        // Detect removed parameters, check the next 2 params for matching types (if possible)
-                        if (nextCleanParam.equals(dirtyParam) && (j + 2 >= cleanParameters.size() || cleanParameters.get(j + 2).equals(nextDirtyParam))) {
-                            removing = true;
-                        }
-                    }
-                    if (!handled) {
-                        // If not, it is possible a new param was injected onto this index.
-                        // In that case, the original param was moved further down the array, and we must find it.
-                        for (int k = j + 1; k < dirtyParameters.size(); k++) {
-                            MethodParameter dirtyParamAhead = dirtyParameters.get(k);
-                            if (cleanParam.type.equals(dirtyParamAhead.type) && (sameType || cleanParam.matchName(dirtyParamAhead))) {
-                                // If the param is found, add all parameters between the original and new pos to the insertion list
-                                for (; j < k; j++, lvtIndex++) {
-                                    insertions.add(Pair.of(lvtIndex, dirtyParameters.get(j).type));
-                                }
-                                // Continue onto the next params
-                                continue outer;
-                            }
-                        }
-                        if (removing) {
-                            removals.add(j);
-                            skipJIncr = true;
-                        }
-                        // If the param is not found, then it was likely replaced
-                        else if (!cleanParam.type.equals(dirtyParam.type)) {
-                            replacements.add(Pair.of(lvtIndex, dirtyParam.type));
-                        }
-                    }
-                }
-                i++;
-                lvtIndex += lvtIndexes ? AdapterUtil.getLVTOffsetForType(dirtyParam.type) : 1;
-            }
-            // For appending parameters at the end of the list
-            else {
-                Type type = dirtyParameters.get(j).type;
-                insertions.add(Pair.of(lvtIndex, type));
-                lvtIndex += lvtIndexes ? AdapterUtil.getLVTOffsetForType(type) : 1;
-            }
-            if (!skipJIncr) {
-                j++;
-            }
+        DiffKey key = new DiffKey(parameterKey(cleanParameters), parameterKey(dirtyParameters), lvtIndexes);
+        return CACHE.asMap().computeIfAbsent(key, k -> ParameterEditScript.compute(cleanParameters, dirtyParameters, lvtIndexes).toParametersDiff());
+    }
+
+    private static String parameterKey(String methodDesc) {
+        return methodDesc.substring(1, methodDesc.indexOf(')'));
+    }
+
+    private static String parameterKey(Type[] types) {
+        StringBuilder builder = new StringBuilder();
+        for (Type type : types) {
+            builder.append(type.getDescriptor());
         }
-        if (j - i + removals.size() != insertions.size()) {
-            throw new IllegalStateException("Unexpected difference in params size");
+        return builder.toString();
+    }
+
+    // Generated names are marked with a '!' prefix, which can't occur in a type descriptor
+    private static String parameterKey(List<MethodParameter> parameters) {
+        StringBuilder builder = new StringBuilder();
+        for (MethodParameter parameter : parameters) {
+            if (parameter.isGeneratedType()) {
+                builder.append('!');
+            }
+            builder.append(parameter.type().getDescriptor());
         }
-        return new ParametersDiff(i, insertions, replacements, swaps, removals);
+        return builder.toString();
     }
 
     public static ParametersDiff rearrangeParameters(List<Type> parameterTypes, List<Type> newParameterTypes) {
@@ -1,15 +1,25 @@
 package dev.su5ed.sinytra.adapter.patch.selector;
 
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.tree.AnnotationNode;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Optional;
+import java.util.*;
 
+// Handles are created for a single patch application and are not thread-safe, they must not be shared between patches
 public final class AnnotationHandle {
     private final AnnotationNode annotationNode;
-    private final Map<String, AnnotationValueHandle<?>> handleCache = new HashMap<>();
+    // Value positions by key and value handles by key position, created on demand. Reset when the annotation's value list changes.
+    @Nullable
+    private Object2IntMap<String> keyIndex;
+    @Nullable
+    private AnnotationValueHandle<?>[] handles;
+    @Nullable
+    private List<Object> indexedValues;
+    private int indexedSize;
+    @Nullable
+    private Map<String, AnnotationValueHandle<?>> allValues;
 
     public AnnotationHandle(AnnotationNode annotationNode) {
         this.annotationNode = annotationNode;
@@ -28,15 +38,44 @@ public final class AnnotationHandle {
     }
 
     public Optional<AnnotationHandle> getNested(String key) {
-        return getValue(key)
-            .<AnnotationNode>flatMap(AnnotationValueHandle::maybeUnwrap)
-            .map(AnnotationHandle::new);
+        return Optional.ofNullable(getNestedOrNull(key));
+    }
+
+    // Returns the nested annotation at the given key, or the first one if the value is an array
+    @Nullable
+    public AnnotationHandle getNestedOrNull(String key) {
+        Object value = getRawValue(key);
+        if (value instanceof List<?> list) {
+            value = list.isEmpty() ? null : list.get(0);
+        }
+        return value instanceof AnnotationNode node ? new AnnotationHandle(node) : null;
     }
 
-    @SuppressWarnings("unchecked")
     public <T> Optional<AnnotationValueHandle<T>> getValue(String key) {
-        AnnotationValueHandle<T> handle = (AnnotationValueHandle<T>) this.handleCache.computeIfAbsent(key, k -> AnnotationValueHandle.create(this.annotationNode, key).orElse(null));
-        return Optional.ofNullable(handle);
+        return Optional.ofNullable(getValueHandle(key));
+    }
+
+    // Annotation values are never null, so null always indicates a missing key
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T getRawValue(String key) {
+        int index = indexOf(key);
+        return index == -1 ? null : (T) this.annotationNode.values.get(index);
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> AnnotationValueHandle<T> getValueHandle(String key) {
+        int index = indexOf(key);
+        if (index == -1) {
+            return null;
+        }
+        AnnotationValueHandle<?>[] handles = this.handles;
+        AnnotationValueHandle<?> handle = handles[index / 2];
+        if (handle == null) {
+            handle = handles[index / 2] = new AnnotationValueHandle<>(this.annotationNode.values, index, key);
+        }
+        return (AnnotationValueHandle<T>) handle;
     }
 
     public void appendValue(String key, Object value) {
@@ -45,19 +84,52 @@ public final class AnnotationHandle {
         }
         this.annotationNode.values.add(key);
         this.annotationNode.values.add(value);
-        this.handleCache.remove(key);
+        invalidate();
     }
 
     public Map<String, AnnotationValueHandle<?>> getAllValues() {
-        Map<String, AnnotationValueHandle<?>> map = new HashMap<>();
-        if (this.annotationNode.values != null) {
-            for (int keyIdx = 0; keyIdx < this.annotationNode.values.size(); keyIdx += 2) {
-                String atKey = (String) this.annotationNode.values.get(keyIdx);
-                int valueIdx = keyIdx + 1;
-                AnnotationValueHandle<?> existing = this.handleCache.compute(atKey, (k, v) -> v != null ? v : new AnnotationValueHandle<>(this.annotationNode.values, valueIdx, atKey));
-                map.put(atKey, existing);
+        getHandles();
+        if (this.allValues == null) {
+            Map<String, AnnotationValueHandle<?>> map = new LinkedHashMap<>();
+            if (this.annotationNode.values != null) {
+                for (int keyIdx = 0; keyIdx < this.annotationNode.values.size(); keyIdx += 2) {
+                    String atKey = (String) this.annotationNode.values.get(keyIdx);
+                    map.put(atKey, getValueHandle(atKey));
+                }
+            }
+            this.allValues = Collections.unmodifiableMap(map);
+        }
+        return this.allValues;
+    }
+
+    private int indexOf(String key) {
+        getHandles();
+        return this.keyIndex.getInt(key);
+    }
+
+    private AnnotationValueHandle<?>[] getHandles() {
+        List<Object> values = this.annotationNode.values;
+        int size = values != null ? values.size() : 0;
+        if (this.handles == null || this.indexedValues != values || this.indexedSize != size) {
+            invalidate();
+            Object2IntMap<String> keyIndex = new Object2IntOpenHashMap<>(size / 2);
+            keyIndex.defaultReturnValue(-1);
+            // Keep the first occurrence of duplicate keys, like a linear scan would
+            for (int i = 0; i < size; i += 2) {
+                keyIndex.putIfAbsent((String) values.get(i), i + 1);
             }
+            this.keyIndex = keyIndex;
+            this.handles = new AnnotationValueHandle<?>[size / 2];
+            this.indexedValues = values;
+            this.indexedSize = size;
         }
-        return map;
+        return this.handles;
+    }
+
+    private void invalidate() {
+        this.keyIndex = null;
+        this.handles = null;
+        this.indexedValues = null;
+        this.allValues = null;
     }
 }
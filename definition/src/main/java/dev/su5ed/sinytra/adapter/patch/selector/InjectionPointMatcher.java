@@ -2,13 +2,12 @@ package dev.su5ed.sinytra.adapter.patch.selector;
 
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.codecs.RecordCodecBuilder;
-import dev.su5ed.sinytra.adapter.patch.Patch;
 import dev.su5ed.sinytra.adapter.patch.PatchEnvironment;
+import dev.su5ed.sinytra.adapter.patch.util.MethodReference;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Objects;
 import java.util.Optional;
-import java.util.regex.Matcher;
 
 public record InjectionPointMatcher(@Nullable String value, String target) {
     public static final Codec<InjectionPointMatcher> CODEC = RecordCodecBuilder.create(instance -> instance.group(
@@ -23,14 +22,10 @@ public record InjectionPointMatcher(@Nullable String value, String target) {
     public InjectionPointMatcher(@Nullable String value, String target) {
         this.value = value;
 
-        Matcher matcher = Patch.METHOD_REF_PATTERN.matcher(target);
-        if (matcher.matches()) {
-            String owner = matcher.group("owner");
-            String name = matcher.group("name");
-            String desc = matcher.group("desc");
-
-            String mappedName = PatchEnvironment.remapReference(name);
-            this.target = Objects.requireNonNullElse(owner, "") + mappedName + Objects.requireNonNullElse(desc, "");
+        MethodReference reference = MethodReference.parse(target);
+        if (reference != null && reference.isWellFormed()) {
+            String mappedName = PatchEnvironment.remapReference(reference.name());
+            this.target = Objects.requireNonNullElse(reference.owner(), "") + mappedName + reference.desc();
         } else {
             this.target = target;
         }
@@ -2,13 +2,18 @@ package dev.su5ed.sinytra.adapter.patch.serialization;
 
 import com.google.common.collect.BiMap;
 import com.google.common.collect.ImmutableBiMap;
+import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonWriter;
 import com.mojang.serialization.Codec;
 import com.mojang.serialization.DataResult;
 import com.mojang.serialization.DynamicOps;
+import com.mojang.serialization.JsonOps;
 import dev.su5ed.sinytra.adapter.patch.ClassPatchInstance;
 import dev.su5ed.sinytra.adapter.patch.InterfacePatchInstance;
 import dev.su5ed.sinytra.adapter.patch.Patch;
+import dev.su5ed.sinytra.adapter.patch.util.ExtraCodecs;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Objects;
 
@@ -38,6 +43,18 @@ public class PatchSerialization {
         });
     }
 
+    // Writes the same JSON as serialize, encoding one patch at a time instead of building the whole tree first
+    public static void serialize(List<Patch> patches, JsonWriter writer) throws IOException {
+        writer.beginArray();
+        for (Patch patch : patches) {
+            JsonElement json = PATCH_INSTANCE_CODEC.encodeStart(JsonOps.INSTANCE, patch).getOrThrow(false, s -> {
+                throw new RuntimeException("Error serializing patches: " + s);
+            });
+            ExtraCodecs.writeJson(writer, json);
+        }
+        writer.endArray();
+    }
+
     public static <T> List<Patch> deserialize(T patches, DynamicOps<T> dynamicOps) {
         return PATCH_INSTANCE_CODEC.listOf().decode(dynamicOps, patches).getOrThrow(false, s -> {
             throw new RuntimeException("Error deserializing patches: " + s);
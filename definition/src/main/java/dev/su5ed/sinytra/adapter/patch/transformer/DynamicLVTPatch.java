@@ -13,6 +13,7 @@ import dev.su5ed.sinytra.adapter.patch.selector.AnnotationHandle;
 import dev.su5ed.sinytra.adapter.patch.selector.AnnotationValueHandle;
 import dev.su5ed.sinytra.adapter.patch.selector.MethodContext;
 import dev.su5ed.sinytra.adapter.patch.util.AdapterUtil;
+import dev.su5ed.sinytra.adapter.patch.util.MethodReference;
 import dev.su5ed.sinytra.adapter.patch.util.MockMixinRuntime;
 import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.Opcodes;
@@ -29,14 +30,11 @@ import org.spongepowered.asm.util.Locals;
 
 import java.util.*;
 import java.util.function.Supplier;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 import static dev.su5ed.sinytra.adapter.patch.PatchInstance.MIXINPATCH;
 
 public record DynamicLVTPatch(Supplier<LVTOffsets> lvtOffsets) implements MethodTransform {
-    private static final Pattern METHOD_REF_PATTERN = Pattern.compile("^(?<owner>L.+;)(?<name>.+)(?<desc>\\(.*\\).+)$");
     private static final Type CI_TYPE = Type.getObjectType("org/spongepowered/asm/mixin/injection/callback/CallbackInfo");
     private static final Type CIR_TYPE = Type.getObjectType("org/spongepowered/asm/mixin/injection/callback/CallbackInfoReturnable");
     private static final String LOCAL_ANN = "Lcom/llamalad7/mixinextras/sugar/Local;";
@@ -164,15 +162,15 @@ public record DynamicLVTPatch(Supplier<LVTOffsets> lvtOffsets) implements Method
         }
         // Resolve method reference
         String reference = context.getEnvironment().remap(classNode.name, methodRefs.get(0));
-        // Extract owner, name and desc using regex
-        Matcher matcher = METHOD_REF_PATTERN.matcher(reference);
-        if (!matcher.matches()) {
+        // Extract owner, name and desc
+        MethodReference methodRef = MethodReference.parse(reference);
+        if (methodRef == null || !methodRef.isQualified()) {
             LOGGER.debug("Not a valid method reference: {}", reference);
             return null;
         }
-        String owner = matcher.group("owner");
-        String name = matcher.group("name");
-        String desc = matcher.group("desc");
+        String owner = methodRef.owner();
+        String name = methodRef.name();
+        String desc = methodRef.desc();
         // Find target class
         // We use mixin's bytecode provider rather than our own interface because it's used by InjectionPoint#find, which is called below,
         // and we'd have to provide it regardless of having our own.
@@ -44,7 +44,7 @@ public record ModifyMethodParams(List<Pair<Integer, Type>> insertions, List<Pair
     private static final Logger LOGGER = LogUtils.getLogger();
 
     public static ModifyMethodParams create(String cleanMethodDesc, String dirtyMethodDesc, TargetType targetType) {
-        ParametersDiff diff = ParametersDiff.compareTypeParameters(Type.getArgumentTypes(cleanMethodDesc), Type.getArgumentTypes(dirtyMethodDesc));
+        ParametersDiff diff = ParametersDiff.compareTypeParameters(cleanMethodDesc, dirtyMethodDesc);
         return new ModifyMethodParams(diff.insertions(), diff.replacements(), diff.swaps(), List.of(), diff.removals(), targetType, null);
     }
 
@@ -7,19 +7,22 @@ import org.objectweb.asm.tree.ClassNode;
 import org.slf4j.Logger;
 import org.spongepowered.asm.service.MixinService;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 public final class AdapterUtil {
     private static final String MOJMAP_PARAM_NAME_PREFIX = "p_";
     public static final String SHADOW_ANN = "Lorg/spongepowered/asm/mixin/Shadow;";
     // Obfuscated variable names consist of '$$' followed by a number
-    private static final String OBF_VAR_PATTERN = "^\\$\\$\\d+$";
+    private static final String OBF_VAR_PREFIX = "$$";
     private static final Map<Type, GeneratedVarName> GENERATED_VAR_NAMES = new HashMap<>();
+    // All name prefixes that may be generated for a type, computed once per type
+    private static final Map<Type, String[]> GENERATED_VAR_PREFIXES = new ConcurrentHashMap<>();
     private static final Logger LOGGER = LogUtils.getLogger();
 
     static {
@@ -53,7 +56,7 @@ public final class AdapterUtil {
 
     public static class GeneratedVarName {
         private final Set<Type> types;
-        private final Pattern pattern;
+        private final String[] prefixes;
 
         public GeneratedVarName(Type type, String prefix) {
             this(Set.of(type), Set.of(prefix));
@@ -61,9 +64,7 @@ public final class AdapterUtil {
 
         public GeneratedVarName(Set<Type> types, Set<String> prefixes) {
             this.types = types;
-            String matchingPrefixes = String.join("|", prefixes);
-            String patternString = "^(%s)\\d*$".formatted(matchingPrefixes);
-            this.pattern = Pattern.compile(patternString);
+            this.prefixes = prefixes.toArray(String[]::new);
         }
 
         public Set<Type> getTypes() {
@@ -71,24 +72,53 @@ public final class AdapterUtil {
         }
 
         public boolean test(String str) {
-            return this.pattern.matcher(str).matches();
+            for (String prefix : this.prefixes) {
+                if (str.startsWith(prefix) && isDigits(str, prefix.length())) {
+                    return true;
+                }
+            }
+            return false;
         }
     }
 
     public static boolean isGeneratedVariableName(String name, Type type) {
-        if (name.startsWith(MOJMAP_PARAM_NAME_PREFIX) || name.matches(OBF_VAR_PATTERN)) {
+        if (name.startsWith(MOJMAP_PARAM_NAME_PREFIX) || name.length() > OBF_VAR_PREFIX.length() && name.startsWith(OBF_VAR_PREFIX) && isDigits(name, OBF_VAR_PREFIX.length())) {
             return true;
         }
+        if (name.equals("this")) {
+            return false;
+        }
+        for (String prefix : GENERATED_VAR_PREFIXES.computeIfAbsent(type, AdapterUtil::computeGeneratedVarPrefixes)) {
+            if (name.startsWith(prefix) && isDigits(name, prefix.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String[] computeGeneratedVarPrefixes(Type type) {
         GeneratedVarName generator = GENERATED_VAR_NAMES.get(type);
-        boolean knownGenerated = generator != null && generator.test(name);
-        if (!knownGenerated && type.getSort() == Type.OBJECT && !name.equals("this")) {
+        String[] prefixes = generator != null ? generator.prefixes : new String[0];
+        if (type.getSort() == Type.OBJECT) {
+            // Names derived from the simple class name, e.g. 'blockpos' for BlockPos
             String internalName = type.getInternalName();
             int index = internalName.lastIndexOf('/');
             String shortName = internalName.substring(index + 1).toLowerCase(Locale.ROOT);
-            String pattern = "^(\\Q%s\\E)\\d*$".formatted(shortName);
-            return name.matches(pattern);
+            String[] withShortName = Arrays.copyOf(prefixes, prefixes.length + 1);
+            withShortName[prefixes.length] = shortName;
+            return withShortName;
+        }
+        return prefixes;
+    }
+
+    private static boolean isDigits(String str, int from) {
+        for (int i = from; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
         }
-        return knownGenerated;
+        return true;
     }
 
     public static int getLVTOffsetForType(Type type) {
@@ -108,8 +138,9 @@ public final class AdapterUtil {
     }
 
     public static boolean isAnonymousClass(String name) {
-        // Regex: second to last char in class name must be '$', and the class name must end with a number
-        return name.matches("^.+\\$\\d+$");
+        // The class name must end with '$' followed by a number
+        int index = name.lastIndexOf('$');
+        return index > 0 && index < name.length() - 1 && isDigits(name, index + 1);
     }
 
     private AdapterUtil() {}
@@ -1,10 +1,23 @@
 package dev.su5ed.sinytra.adapter.patch.util;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonWriter;
 import com.mojang.serialization.Codec;
 import org.objectweb.asm.Type;
 
+import java.io.IOException;
+
 public final class ExtraCodecs {
     public static final Codec<Type> TYPE_CODEC = Codec.STRING.xmap(Type::getType, Type::getDescriptor);
+    // Writes elements using the writer's own formatting settings
+    private static final TypeAdapter<JsonElement> JSON_ELEMENT_ADAPTER = new Gson().getAdapter(JsonElement.class);
 
     private ExtraCodecs() {}
+
+    // Writes encoded values into a streamed JSON document
+    public static void writeJson(JsonWriter writer, JsonElement json) throws IOException {
+        JSON_ELEMENT_ADAPTER.write(writer, json);
+    }
 }
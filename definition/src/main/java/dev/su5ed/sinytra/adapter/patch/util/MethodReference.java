@@ -0,0 +1,168 @@
+package dev.su5ed.sinytra.adapter.patch.util;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Single-pass parser for "Lowner;name(desc)ret" method references, cached by their raw string
+public final class MethodReference {
+    private static final int MAX_CACHE_SIZE = 8192;
+    private static final Map<String, MethodReference> CACHE = new ConcurrentHashMap<>();
+    // Cache marker for strings that could not be parsed
+    private static final MethodReference INVALID = new MethodReference(null, null, null, false);
+
+    @Nullable
+    private final String owner;
+    @Nullable
+    private final String name;
+    @Nullable
+    private final String desc;
+    private final boolean wellFormed;
+
+    private MethodReference(@Nullable String owner, @Nullable String name, @Nullable String desc, boolean wellFormed) {
+        this.owner = owner;
+        this.name = name;
+        this.desc = desc;
+        this.wellFormed = wellFormed;
+    }
+
+    @Nullable
+    public static MethodReference parse(String reference) {
+        MethodReference parsed = CACHE.get(reference);
+        if (parsed == null) {
+            parsed = scan(reference);
+            if (CACHE.size() < MAX_CACHE_SIZE) {
+                CACHE.putIfAbsent(reference, parsed);
+            }
+        }
+        return parsed == INVALID ? null : parsed;
+    }
+
+    @Nullable
+    public String owner() {
+        return this.owner;
+    }
+
+    @Nullable
+    public String name() {
+        return this.name;
+    }
+
+    @Nullable
+    public String desc() {
+        return this.desc;
+    }
+
+    // Whether the reference has a name and a valid method descriptor, as well as a valid owner if present
+    public boolean isWellFormed() {
+        return this.wellFormed;
+    }
+
+    public boolean isQualified() {
+        return this.owner != null && this.name != null && this.desc != null;
+    }
+
+    private static MethodReference scan(String reference) {
+        int length = reference.length();
+        int descStart = reference.indexOf('(');
+        int nameEnd = descStart == -1 ? length : descStart;
+        int nameStart = 0;
+        String owner = null;
+        if (length > 0 && reference.charAt(0) == 'L') {
+            int ownerEnd = reference.indexOf(';');
+            if (ownerEnd > 1 && ownerEnd < nameEnd) {
+                owner = reference.substring(0, ownerEnd + 1);
+                nameStart = ownerEnd + 1;
+            }
+        }
+        String name = nameStart < nameEnd ? reference.substring(nameStart, nameEnd) : null;
+        String desc = null;
+        if (descStart != -1) {
+            int descEnd = reference.lastIndexOf(')');
+            // The return type must follow the closing parenthesis
+            if (descEnd < descStart || descEnd == length - 1) {
+                return INVALID;
+            }
+            desc = reference.substring(descStart);
+        }
+        if (name == null && desc == null) {
+            return INVALID;
+        }
+        boolean wellFormed = name != null && desc != null
+            && (owner == null || isValidInternalName(owner, 1, owner.length() - 1))
+            && isValidMethodName(name)
+            && isValidMethodDescriptor(desc);
+        return new MethodReference(owner, name, desc, wellFormed);
+    }
+
+    private static boolean isValidMethodName(String name) {
+        int start = 0;
+        int end = name.length();
+        if (name.charAt(0) == '<') {
+            if (end < 3 || name.charAt(end - 1) != '>') {
+                return false;
+            }
+            start = 1;
+            end--;
+        }
+        for (int i = start; i < end; i++) {
+            char c = name.charAt(i);
+            if (!isAsciiLetterOrDigit(c) && c != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isValidMethodDescriptor(String desc) {
+        int length = desc.length();
+        int pos = 1;
+        while (pos < length && desc.charAt(pos) != ')') {
+            pos = skipFieldType(desc, pos);
+            if (pos == -1) {
+                return false;
+            }
+        }
+        if (pos >= length) {
+            return false;
+        }
+        pos++;
+        return pos < length && desc.charAt(pos) == 'V' ? pos + 1 == length : skipFieldType(desc, pos) == length;
+    }
+
+    private static int skipFieldType(String desc, int pos) {
+        int length = desc.length();
+        while (pos < length && desc.charAt(pos) == '[') {
+            pos++;
+        }
+        if (pos >= length) {
+            return -1;
+        }
+        return switch (desc.charAt(pos)) {
+            case 'Z', 'C', 'B', 'S', 'I', 'F', 'J', 'D' -> pos + 1;
+            case 'L' -> {
+                int end = desc.indexOf(';', pos);
+                yield end != -1 && isValidInternalName(desc, pos + 1, end) ? end + 1 : -1;
+            }
+            default -> -1;
+        };
+    }
+
+    private static boolean isValidInternalName(String str, int start, int end) {
+        if (start >= end) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = str.charAt(i);
+            if (!isAsciiLetterOrDigit(c) && c != '/' && c != '_' && c != '$') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9';
+    }
+}
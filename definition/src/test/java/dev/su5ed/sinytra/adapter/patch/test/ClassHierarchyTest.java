@@ -0,0 +1,99 @@
+package dev.su5ed.sinytra.adapter.patch.test;
+
+import dev.su5ed.sinytra.adapter.patch.analysis.ClassHierarchy;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+
+import java.io.*;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClassHierarchyTest {
+    private static final String[] NONE = new String[0];
+
+    private static ClassHierarchy createHierarchy() {
+        return ClassHierarchy.builder()
+            .add("a/Entity", "java/lang/Object", new String[]{"a/Nameable"}, Opcodes.ACC_PUBLIC)
+            .add("a/LivingEntity", "a/Entity", NONE, Opcodes.ACC_PUBLIC)
+            .add("a/Player", "a/LivingEntity", new String[]{"a/Inventory"}, Opcodes.ACC_PUBLIC)
+            .add("a/Item", "java/lang/Object", NONE, Opcodes.ACC_PUBLIC)
+            .add("a/Nameable", "java/lang/Object", NONE, Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT)
+            .add("a/Inventory", "java/lang/Object", new String[]{"a/Container"}, Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT)
+            .add("a/Container", "java/lang/Object", NONE, Opcodes.ACC_INTERFACE | Opcodes.ACC_ABSTRACT)
+            .build();
+    }
+
+    @Test
+    public void testSubtypes() {
+        ClassHierarchy hierarchy = createHierarchy();
+        assertEquals(7, hierarchy.size());
+        assertTrue(hierarchy.isSubtype("a/Player", "a/LivingEntity"));
+        assertTrue(hierarchy.isSubtype("a/Player", "a/Entity"));
+        assertTrue(hierarchy.isSubtype("a/Player", "a/Nameable"));
+        assertTrue(hierarchy.isSubtype("a/Player", "a/Container"));
+        assertTrue(hierarchy.isSubtype("a/Inventory", "a/Container"));
+        assertFalse(hierarchy.isSubtype("a/Entity", "a/Player"));
+        assertFalse(hierarchy.isSubtype("a/LivingEntity", "a/Inventory"));
+        assertFalse(hierarchy.isSubtype("a/Item", "a/Entity"));
+        assertFalse(hierarchy.isSubtype("a/Player", "a/Player"));
+        // Classes outside the hierarchy are never matched
+        assertFalse(hierarchy.isSubtype("a/Player", "java/lang/Object"));
+        assertFalse(hierarchy.isSubtype("a/Missing", "a/Entity"));
+        assertEquals(Set.of("a/LivingEntity", "a/Entity", "a/Nameable", "a/Inventory", "a/Container"), Set.copyOf(hierarchy.getSupertypes("a/Player")));
+    }
+
+    @Test
+    public void testLaterClassesReplaceEarlier() {
+        ClassHierarchy hierarchy = ClassHierarchy.builder()
+            .add("a/Base", "java/lang/Object", NONE, Opcodes.ACC_PUBLIC)
+            .add("a/Other", "java/lang/Object", NONE, Opcodes.ACC_PUBLIC)
+            .add("a/Child", "a/Base", NONE, Opcodes.ACC_PUBLIC)
+            .add("a/Child", "a/Other", NONE, Opcodes.ACC_PUBLIC)
+            .build();
+        assertTrue(hierarchy.isSubtype("a/Child", "a/Other"));
+        assertFalse(hierarchy.isSubtype("a/Child", "a/Base"));
+    }
+
+    @Test
+    public void testCyclicHierarchy() {
+        ClassHierarchy hierarchy = ClassHierarchy.builder()
+            .add("a/First", "a/Second", NONE, Opcodes.ACC_PUBLIC)
+            .add("a/Second", "a/First", NONE, Opcodes.ACC_PUBLIC)
+            .add("a/Third", "a/First", NONE, Opcodes.ACC_PUBLIC)
+            .build();
+        assertTrue(hierarchy.isSubtype("a/Third", "a/First"));
+        assertFalse(hierarchy.isSubtype("a/Third", "a/Third"));
+    }
+
+    @Test
+    public void testSerialization() throws IOException {
+        ClassHierarchy hierarchy = createHierarchy();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        hierarchy.write(new DataOutputStream(bytes));
+        ClassHierarchy read = ClassHierarchy.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(hierarchy.size(), read.size());
+        assertTrue(read.isSubtype("a/Player", "a/Container"));
+        assertTrue(read.isSubtype("a/LivingEntity", "a/Entity"));
+        assertFalse(read.isSubtype("a/Item", "a/Nameable"));
+        assertEquals(Set.copyOf(hierarchy.getSupertypes("a/Player")), Set.copyOf(read.getSupertypes("a/Player")));
+    }
+
+    @Test
+    public void testCopiedBuilder() {
+        ClassHierarchy.Builder shared = ClassHierarchy.builder()
+            .add("a/Entity", "java/lang/Object", NONE, Opcodes.ACC_PUBLIC)
+            .add("a/Player", "a/Entity", NONE, Opcodes.ACC_PUBLIC);
+        // Each copy replaces the shared class independently
+        ClassHierarchy first = shared.copy()
+            .add("a/Item", "java/lang/Object", NONE, Opcodes.ACC_PUBLIC)
+            .add("a/Player", "a/Item", NONE, Opcodes.ACC_PUBLIC)
+            .build();
+        ClassHierarchy second = shared.copy().build();
+        assertTrue(first.isSubtype("a/Player", "a/Item"));
+        assertFalse(first.isSubtype("a/Player", "a/Entity"));
+        assertTrue(second.isSubtype("a/Player", "a/Entity"));
+        assertFalse(second.contains("a/Item"));
+        assertEquals(2, shared.build().size());
+    }
+}
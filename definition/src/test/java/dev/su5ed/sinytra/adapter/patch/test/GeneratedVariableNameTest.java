@@ -0,0 +1,47 @@
+package dev.su5ed.sinytra.adapter.patch.test;
+
+import dev.su5ed.sinytra.adapter.patch.util.AdapterUtil;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Type;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GeneratedVariableNameTest {
+    private static final Type BLOCK_POS = Type.getObjectType("net/minecraft/core/BlockPos");
+    private static final Type MUTABLE_BLOCK_POS = Type.getObjectType("net/minecraft/core/BlockPos$MutableBlockPos");
+
+    @Test
+    public void testGeneratedVariableNames() {
+        assertTrue(AdapterUtil.isGeneratedVariableName("p_110986_", Type.DOUBLE_TYPE));
+        assertTrue(AdapterUtil.isGeneratedVariableName("$$12", Type.INT_TYPE));
+        assertTrue(AdapterUtil.isGeneratedVariableName("i", Type.INT_TYPE));
+        assertTrue(AdapterUtil.isGeneratedVariableName("l1", Type.LONG_TYPE));
+        assertTrue(AdapterUtil.isGeneratedVariableName("flag2", Type.BOOLEAN_TYPE));
+        assertTrue(AdapterUtil.isGeneratedVariableName("s1", Type.getObjectType("java/lang/String")));
+        assertTrue(AdapterUtil.isGeneratedVariableName("blockpos", BLOCK_POS));
+        assertTrue(AdapterUtil.isGeneratedVariableName("blockpos3", BLOCK_POS));
+        assertTrue(AdapterUtil.isGeneratedVariableName("blockpos$mutableblockpos", MUTABLE_BLOCK_POS));
+    }
+
+    @Test
+    public void testNamedVariables() {
+        assertFalse(AdapterUtil.isGeneratedVariableName("$$", Type.INT_TYPE));
+        assertFalse(AdapterUtil.isGeneratedVariableName("$$a", Type.INT_TYPE));
+        assertFalse(AdapterUtil.isGeneratedVariableName("index", Type.INT_TYPE));
+        assertFalse(AdapterUtil.isGeneratedVariableName("f", Type.INT_TYPE));
+        assertFalse(AdapterUtil.isGeneratedVariableName("alpha", Type.FLOAT_TYPE));
+        assertFalse(AdapterUtil.isGeneratedVariableName("pos", BLOCK_POS));
+        assertFalse(AdapterUtil.isGeneratedVariableName("this", Type.getObjectType("net/minecraft/This")));
+        assertFalse(AdapterUtil.isGeneratedVariableName("blockpos", Type.getType("[Lnet/minecraft/core/BlockPos;")));
+    }
+
+    @Test
+    public void testAnonymousClassNames() {
+        assertTrue(AdapterUtil.isAnonymousClass("net/minecraft/client/Minecraft$1"));
+        assertTrue(AdapterUtil.isAnonymousClass("net/minecraft/client/Minecraft$Inner$12"));
+        assertFalse(AdapterUtil.isAnonymousClass("net/minecraft/client/Minecraft$Inner"));
+        assertFalse(AdapterUtil.isAnonymousClass("net/minecraft/client/Minecraft$"));
+        assertFalse(AdapterUtil.isAnonymousClass("$1"));
+    }
+}
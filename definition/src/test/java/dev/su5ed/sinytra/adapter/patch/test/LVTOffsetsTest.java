@@ -0,0 +1,82 @@
+package dev.su5ed.sinytra.adapter.patch.test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import dev.su5ed.sinytra.adapter.patch.LVTOffsets;
+import dev.su5ed.sinytra.adapter.patch.util.MethodQualifier;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LVTOffsetsTest {
+    private static final int CLASS_COUNT = 200;
+    private static final int METHOD_COUNT = 10;
+
+    @Test
+    public void testParallelOutputMatchesSerial() throws IOException {
+        List<String> classes = IntStream.range(0, CLASS_COUNT).mapToObj(i -> "net/minecraft/Class" + i).toList();
+
+        Map<String, Map<MethodQualifier, List<LVTOffsets.Offset>>> serialOffsets = new LinkedHashMap<>();
+        Map<String, Map<MethodQualifier, List<LVTOffsets.Swap>>> serialReorders = new LinkedHashMap<>();
+        for (String cls : classes) {
+            serialOffsets.put(cls, createMethods(false, i -> List.of(new LVTOffsets.Offset(i, 1))));
+            serialReorders.put(cls, createMethods(false, i -> List.of(new LVTOffsets.Swap(i, i + 1))));
+        }
+
+        // Collected from multiple threads, with methods added in reverse order
+        Map<String, Map<MethodQualifier, List<LVTOffsets.Offset>>> parallelOffsets = new ConcurrentHashMap<>();
+        Map<String, Map<MethodQualifier, List<LVTOffsets.Swap>>> parallelReorders = new ConcurrentHashMap<>();
+        classes.parallelStream().forEach(cls -> {
+            parallelOffsets.put(cls, createMethods(true, i -> List.of(new LVTOffsets.Offset(i, 1))));
+            parallelReorders.put(cls, createMethods(true, i -> List.of(new LVTOffsets.Swap(i, i + 1))));
+        });
+
+        byte[] serial = write(new LVTOffsets(serialOffsets, serialReorders));
+        byte[] parallel = write(new LVTOffsets(parallelOffsets, parallelReorders));
+        assertArrayEquals(serial, parallel);
+    }
+
+    @Test
+    public void testSortedOrder() {
+        Map<MethodQualifier, List<LVTOffsets.Offset>> methods = new LinkedHashMap<>();
+        methods.put(new MethodQualifier("tick", "()V"), List.of());
+        methods.put(new MethodQualifier("move", "(D)V"), List.of());
+        methods.put(new MethodQualifier("move", "(DD)V"), List.of());
+        Map<String, Map<MethodQualifier, List<LVTOffsets.Offset>>> offsets = new LinkedHashMap<>();
+        offsets.put("b/Second", methods);
+        offsets.put("a/First", Map.of());
+
+        LVTOffsets sorted = new LVTOffsets(offsets, Map.of()).sorted();
+        assertEquals(List.of("a/First", "b/Second"), List.copyOf(sorted.offsets().keySet()));
+        assertEquals(List.of(new MethodQualifier("move", "(D)V"), new MethodQualifier("move", "(DD)V"), new MethodQualifier("tick", "()V")),
+            List.copyOf(sorted.offsets().get("b/Second").keySet()));
+    }
+
+    private static <T> Map<MethodQualifier, List<T>> createMethods(boolean reverse, IntFunction<List<T>> factory) {
+        Map<MethodQualifier, List<T>> methods = new LinkedHashMap<>();
+        for (int i = 0; i < METHOD_COUNT; i++) {
+            int index = reverse ? METHOD_COUNT - 1 - i : i;
+            methods.put(new MethodQualifier("method" + index, "(I)V"), factory.apply(index));
+        }
+        return methods;
+    }
+
+    private static byte[] write(LVTOffsets offsets) throws IOException {
+        Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (JsonWriter writer = gson.newJsonWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+            offsets.write(writer);
+        }
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,58 @@
+package dev.su5ed.sinytra.adapter.patch.test;
+
+import dev.su5ed.sinytra.adapter.patch.util.MethodReference;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MethodReferenceTest {
+    @Test
+    public void testParseQualifiedReference() {
+        MethodReference reference = MethodReference.parse("Lnet/minecraft/world/entity/Entity;move(Lnet/minecraft/world/entity/MoverType;Lnet/minecraft/world/phys/Vec3;)V");
+        assertNotNull(reference);
+        assertEquals("Lnet/minecraft/world/entity/Entity;", reference.owner());
+        assertEquals("move", reference.name());
+        assertEquals("(Lnet/minecraft/world/entity/MoverType;Lnet/minecraft/world/phys/Vec3;)V", reference.desc());
+        assertTrue(reference.isQualified());
+        assertTrue(reference.isWellFormed());
+    }
+
+    @Test
+    public void testParsePartialReference() {
+        MethodReference nameOnly = MethodReference.parse("tick");
+        assertNotNull(nameOnly);
+        assertNull(nameOnly.owner());
+        assertEquals("tick", nameOnly.name());
+        assertNull(nameOnly.desc());
+        assertFalse(nameOnly.isWellFormed());
+
+        MethodReference descOnly = MethodReference.parse("([[ILjava/lang/String;)[Ljava/lang/Object;");
+        assertNotNull(descOnly);
+        assertNull(descOnly.name());
+        assertEquals("([[ILjava/lang/String;)[Ljava/lang/Object;", descOnly.desc());
+
+        MethodReference constructor = MethodReference.parse("<init>(I)V");
+        assertNotNull(constructor);
+        assertEquals("<init>", constructor.name());
+        assertTrue(constructor.isWellFormed());
+        assertFalse(constructor.isQualified());
+    }
+
+    @Test
+    public void testParseInvalidReference() {
+        assertNull(MethodReference.parse("tick("));
+        assertNull(MethodReference.parse("tick()"));
+        assertNull(MethodReference.parse("Lnet/minecraft/world/entity/Entity;"));
+        assertNull(MethodReference.parse(""));
+
+        MethodReference badDesc = MethodReference.parse("tick(Q)V");
+        assertNotNull(badDesc);
+        assertFalse(badDesc.isWellFormed());
+    }
+
+    @Test
+    public void testCachedReference() {
+        String str = "Lnet/minecraft/client/Minecraft;tick()V";
+        assertSame(MethodReference.parse(str), MethodReference.parse(new String(str)));
+    }
+}
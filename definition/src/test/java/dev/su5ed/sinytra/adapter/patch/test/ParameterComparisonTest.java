@@ -1,5 +1,7 @@
 package dev.su5ed.sinytra.adapter.patch.test;
 
+import com.mojang.datafixers.util.Pair;
+import dev.su5ed.sinytra.adapter.patch.analysis.ParameterEditScript;
 import dev.su5ed.sinytra.adapter.patch.analysis.ParametersDiff;
 import org.junit.jupiter.api.Test;
 import org.objectweb.asm.ClassReader;
@@ -10,8 +12,7 @@ import org.objectweb.asm.tree.MethodNode;
 import java.io.IOException;
 import java.util.*;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
 
 public class ParameterComparisonTest {
     @Test
@@ -174,6 +175,129 @@ public class ParameterComparisonTest {
         assertTrue(diff.removals().isEmpty());
     }
 
+    @Test
+    public void testCompareSwappedParameters() {
+        Type[] original = new Type[]{Type.getType(String.class), Type.INT_TYPE, Type.getType(Object.class), Type.FLOAT_TYPE};
+        Type[] modified = new Type[]{Type.getType(String.class), Type.getType(Object.class), Type.INT_TYPE, Type.FLOAT_TYPE};
+
+        ParametersDiff diff = ParametersDiff.compareTypeParameters(original, modified);
+        assertEquals(original.length, diff.originalCount());
+        assertTrue(diff.insertions().isEmpty());
+        assertTrue(diff.replacements().isEmpty());
+        assertTrue(diff.removals().isEmpty());
+        assertEquals(List.of(Pair.of(1, 2)), diff.swaps());
+    }
+
+    @Test
+    public void testCompareLongInsertedParameters() {
+        // Insert unique types into a long list of repeating types, as found in large local variable tables
+        Random random = new Random(42);
+        Type[] pool = new Type[]{Type.INT_TYPE, Type.FLOAT_TYPE, Type.DOUBLE_TYPE, Type.BOOLEAN_TYPE, Type.getType(String.class), Type.getType(Object.class)};
+        List<Type> original = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            original.add(pool[random.nextInt(pool.length)]);
+        }
+        List<Type> modified = new ArrayList<>(original);
+        List<Pair<Integer, Type>> expected = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            int index = expected.isEmpty() ? random.nextInt(10) : expected.get(expected.size() - 1).getFirst() + 1 + random.nextInt(20);
+            Type type = Type.getObjectType("net/minecraft/Inserted" + i);
+            modified.add(index, type);
+            expected.add(Pair.of(index, type));
+        }
+
+        ParametersDiff diff = ParametersDiff.compareTypeParameters(original.toArray(Type[]::new), modified.toArray(Type[]::new));
+        assertEquals(original.size(), diff.originalCount());
+        assertEquals(expected, diff.insertions());
+        assertTrue(diff.replacements().isEmpty());
+        assertTrue(diff.swaps().isEmpty());
+        assertTrue(diff.removals().isEmpty());
+    }
+
+    @Test
+    public void testCompareUnchangedParameters() {
+        // Equal but not identical types, as read from two separate class files
+        Type[] original = new Type[]{Type.getType("Ljava/lang/String;"), Type.LONG_TYPE, Type.getType("[I")};
+        Type[] modified = new Type[]{Type.getType(new String("Ljava/lang/String;".toCharArray())), Type.LONG_TYPE, Type.getType(new String("[I".toCharArray()))};
+
+        ParameterEditScript script = ParameterEditScript.compute(original, modified, true);
+        assertEquals(original.length, script.originalCount());
+        assertTrue(script.isEmpty());
+    }
+
+    @Test
+    public void testCompareInsertedWideParameters() {
+        // A single run of inserted params after wide types, whose LVT indexes take two slots
+        Type[] original = new Type[]{Type.DOUBLE_TYPE, Type.LONG_TYPE, Type.INT_TYPE, Type.getType(Object.class)};
+        Type[] modified = new Type[]{Type.DOUBLE_TYPE, Type.LONG_TYPE, Type.FLOAT_TYPE, Type.DOUBLE_TYPE, Type.INT_TYPE, Type.getType(Object.class)};
+
+        ParametersDiff diff = ParameterEditScript.compute(original, modified, true).toParametersDiff();
+        assertEquals(original.length, diff.originalCount());
+        assertEquals(List.of(Pair.of(4, Type.FLOAT_TYPE), Pair.of(5, Type.DOUBLE_TYPE)), diff.insertions());
+        assertTrue(diff.replacements().isEmpty());
+        assertTrue(diff.swaps().isEmpty());
+        assertTrue(diff.removals().isEmpty());
+    }
+
+    @Test
+    public void testCompareNamedInsertionBeforeSameType() {
+        // The greedy scan reported this as a swap of the first two params followed by an insertion
+        List<ParametersDiff.MethodParameter> clean = List.of(new ParametersDiff.MethodParameter("p_1_", Type.FLOAT_TYPE), new ParametersDiff.MethodParameter("p_2_", Type.FLOAT_TYPE));
+        List<ParametersDiff.MethodParameter> dirty = List.of(new ParametersDiff.MethodParameter("alpha", Type.FLOAT_TYPE), new ParametersDiff.MethodParameter("p_1_", Type.FLOAT_TYPE),
+            new ParametersDiff.MethodParameter("p_2_", Type.FLOAT_TYPE));
+
+        ParametersDiff diff = ParameterEditScript.compute(clean, dirty, false).toParametersDiff();
+        assertEquals(clean.size(), diff.originalCount());
+        assertEquals(List.of(Pair.of(0, Type.FLOAT_TYPE)), diff.insertions());
+        assertTrue(diff.replacements().isEmpty());
+        assertTrue(diff.swaps().isEmpty());
+        assertTrue(diff.removals().isEmpty());
+    }
+
+    @Test
+    public void testCompareSwappedSameTypeParameters() {
+        // Params of the same type are still swapped when only one of them has a generated name, same as in the greedy scan
+        List<ParametersDiff.MethodParameter> clean = List.of(new ParametersDiff.MethodParameter("p_1_", Type.FLOAT_TYPE), new ParametersDiff.MethodParameter("alpha", Type.FLOAT_TYPE));
+        List<ParametersDiff.MethodParameter> dirty = List.of(new ParametersDiff.MethodParameter("alpha", Type.FLOAT_TYPE), new ParametersDiff.MethodParameter("p_1_", Type.FLOAT_TYPE));
+
+        ParametersDiff diff = ParameterEditScript.compute(clean, dirty, false).toParametersDiff();
+        assertEquals(clean.size(), diff.originalCount());
+        assertTrue(diff.insertions().isEmpty());
+        assertTrue(diff.replacements().isEmpty());
+        assertEquals(List.of(Pair.of(0, 1)), diff.swaps());
+        assertTrue(diff.removals().isEmpty());
+    }
+
+    @Test
+    public void testCompareRemovedWideParameters() {
+        // Removals advance the LVT index by the size of the following dirty param, same as in the greedy scan
+        Type[] original = new Type[]{Type.getType(String.class), Type.LONG_TYPE, Type.getType(Object.class), Type.FLOAT_TYPE, Type.INT_TYPE};
+        Type[] modified = new Type[]{Type.getType(String.class), Type.getType(Object.class), Type.FLOAT_TYPE, Type.DOUBLE_TYPE, Type.INT_TYPE};
+
+        ParametersDiff diff = ParameterEditScript.compute(original, modified, true).toParametersDiff();
+        assertEquals(original.length, diff.originalCount());
+        assertEquals(List.of(Pair.of(4, Type.DOUBLE_TYPE)), diff.insertions());
+        assertTrue(diff.replacements().isEmpty());
+        assertTrue(diff.swaps().isEmpty());
+        assertEquals(List.of(1), diff.removals());
+    }
+
+    @Test
+    public void testCachedParameterDiffs() {
+        ParametersDiff diff = ParametersDiff.compareTypeParameters("(Ljava/lang/String;ILjava/lang/Object;)V", "(Ljava/lang/String;DILjava/lang/Object;)Z");
+        ParametersDiff typed = ParametersDiff.compareTypeParameters(Type.getArgumentTypes("(Ljava/lang/String;ILjava/lang/Object;)V"), Type.getArgumentTypes("(Ljava/lang/String;DILjava/lang/Object;)V"));
+        assertSame(diff, typed);
+        assertEquals(List.of(Pair.of(1, Type.DOUBLE_TYPE)), diff.insertions());
+        assertThrows(UnsupportedOperationException.class, () -> diff.insertions().clear());
+
+        // Generated names are part of the key
+        List<ParametersDiff.MethodParameter> clean = List.of(new ParametersDiff.MethodParameter("i", Type.INT_TYPE), new ParametersDiff.MethodParameter("alpha", Type.INT_TYPE));
+        List<ParametersDiff.MethodParameter> dirty = List.of(new ParametersDiff.MethodParameter("i", Type.INT_TYPE), new ParametersDiff.MethodParameter("extra", Type.INT_TYPE), new ParametersDiff.MethodParameter("alpha", Type.INT_TYPE));
+        List<ParametersDiff.MethodParameter> dirtyGenerated = List.of(new ParametersDiff.MethodParameter("i", Type.INT_TYPE), new ParametersDiff.MethodParameter("i2", Type.INT_TYPE), new ParametersDiff.MethodParameter("alpha", Type.INT_TYPE));
+        assertNotSame(ParametersDiff.compareParameters(clean, dirty, false), ParametersDiff.compareParameters(clean, dirtyGenerated, false));
+        assertSame(ParametersDiff.compareParameters(clean, dirty, false), ParametersDiff.compareParameters(clean, dirty, false));
+    }
+
     // TODO Handle this case
 //    @Test
 //    public void testCompareComplexParameters() {
@@ -1,5 +1,6 @@
 plugins {
     `java-gradle-plugin`
+    application
 }
 
 group = "dev.su5ed.sinytra.adapter"
@@ -20,6 +21,11 @@ gradlePlugin {
     }
 }
 
+// Standalone entry point for generating patch data without Gradle, see installDist
+application {
+    mainClass.set("dev.su5ed.sinytra.adapter.gradle.AdapterCli")
+}
+
 repositories {
     mavenCentral()
     maven {
@@ -0,0 +1,160 @@
+package dev.su5ed.sinytra.adapter.gradle;
+
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import dev.su5ed.sinytra.adapter.gradle.analysis.AnalysisBudget;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Generates patch data outside of Gradle, analyzing all shards in this process.
+// Produces the same outputs as the generateAdapterData task, and prints the time taken by each phase.
+public class AdapterCli {
+    private static final Logger LOGGER = LoggerFactory.getLogger("AdapterCli");
+    private static final String USAGE = """
+        Usage: AdapterCli --clean <jar> --dirty <jar> [--dirty <jar>...] --mappings <file> [options]
+        With multiple dirty jars, the outputs of each are written to a subdirectory named after the jar.
+        Options:
+          --output <dir>      Directory for patch_data.json, lvt_offsets.json and analysis_profile.json, defaults to the working directory
+          --cache <dir>       Directory for cached analysis results, defaults to <output>/cache
+          --threads <count>   Number of analysis threads, defaults to the number of available processors
+          --shard-size <n>    Number of classes analyzed at once, defaults to 500
+          --class-time <ms>   Time after which the remaining methods of a class are skipped, defaults to 0 (disabled)
+          --method-work <n>   Instructions compared after which a method is skipped, defaults to 50000000, 0 disables it""";
+
+    private static final Set<String> OPTIONS = Set.of("clean", "dirty", "mappings", "output", "cache", "threads", "shard-size", "class-time", "method-work");
+
+    private interface ShardTask {
+        void run() throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, List<String>> options = parseOptions(args);
+        if (options == null || !options.containsKey("clean") || !options.containsKey("dirty") || !options.containsKey("mappings")) {
+            exitWithUsage(null);
+            return;
+        }
+        int threads;
+        int shardSize;
+        AnalysisBudget budget;
+        try {
+            threads = Integer.parseInt(getOption(options, "threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+            shardSize = Integer.parseInt(getOption(options, "shard-size", "500"));
+            budget = new AnalysisBudget(Long.parseLong(getOption(options, "class-time", "0")), Long.parseLong(getOption(options, "method-work", "50000000")));
+        } catch (NumberFormatException e) {
+            exitWithUsage("Invalid number: " + e.getMessage());
+            return;
+        }
+        if (threads < 1 || shardSize < 1) {
+            exitWithUsage("Thread count and shard size must be positive");
+            return;
+        }
+        Path output = Path.of(getOption(options, "output", "."));
+        Path cacheDirectory = options.containsKey("cache") ? Path.of(getOption(options, "cache", null)) : output.resolve("cache");
+        Path cleanJar = Path.of(getOption(options, "clean", null));
+        Files.createDirectories(output);
+
+        List<String> dirtyJars = options.get("dirty");
+        List<AdapterDataGenerator.Target> targets = new ArrayList<>();
+        if (dirtyJars.size() == 1) {
+            targets.add(new AdapterDataGenerator.Target("", Path.of(dirtyJars.get(0)), output.resolve("patch_data.json"), output.resolve("lvt_offsets.json"), output.resolve("analysis_profile.json")));
+        } else {
+            dirtyJars.forEach(jar -> targets.add(AdapterDataGenerator.Target.inDirectory(Path.of(jar), output, output)));
+        }
+
+        // Shard inputs and outputs are only needed during the run
+        Path workDirectory = Files.createTempDirectory("adapter-cli");
+        AdapterDataGenerator generator = new AdapterDataGenerator(cleanJar, Path.of(getOption(options, "mappings", null)), cacheDirectory, workDirectory, shardSize, budget, LOGGER);
+        // Shards of different targets run at the same time, sharing a single pool of analysis threads
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(targets.size());
+        try {
+            generator.generate(targets, new AdapterDataGenerator.ShardExecutor() {
+                private final List<Future<?>> pending = new ArrayList<>();
+
+                @Override
+                public void analyze(Path dirtyJar, Path classHierarchy, Path methodMappings, List<String> entries, AnalysisBudget budget, Path shardOutput) {
+                    submit(() -> AnalysisShards.analyze(cleanJar, dirtyJar, methodMappings, classHierarchy, entries, budget, pool, shardOutput));
+                }
+
+                @Override
+                public void postAnalyze(Path dirtyJar, Path summaries, Path replacementCalls, Path shardOutput) {
+                    submit(() -> AnalysisShards.postAnalyze(cleanJar, dirtyJar, summaries, replacementCalls, pool, shardOutput));
+                }
+
+                private void submit(ShardTask shard) {
+                    this.pending.add(executor.submit(() -> {
+                        try {
+                            shard.run();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }));
+                }
+
+                @Override
+                public void await() {
+                    try {
+                        for (Future<?> future : this.pending) {
+                            future.get();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException(e);
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof RuntimeException re) {
+                            throw re;
+                        }
+                        throw new RuntimeException(e.getCause());
+                    } finally {
+                        this.pending.clear();
+                    }
+                }
+            });
+        } finally {
+            executor.shutdownNow();
+            pool.shutdown();
+            MoreFiles.deleteRecursively(workDirectory, RecursiveDeleteOption.ALLOW_INSECURE);
+        }
+
+        long total = 0;
+        for (Map.Entry<String, Long> entry : generator.getPhaseTimings().entrySet()) {
+            System.out.printf("%-14s %8d ms%n", entry.getKey(), entry.getValue());
+            total += entry.getValue();
+        }
+        System.out.printf("%-14s %8d ms%n", "total", total);
+    }
+
+    private static void exitWithUsage(@Nullable String message) {
+        if (message != null) {
+            System.err.println(message);
+        }
+        System.err.println(USAGE);
+        System.exit(1);
+    }
+
+    private static String getOption(Map<String, List<String>> options, String name, String defaultValue) {
+        List<String> values = options.get(name);
+        return values != null ? values.get(values.size() - 1) : defaultValue;
+    }
+
+    // Options may be repeated, all values are kept in order. Returns null for unknown options, so that typos aren't silently ignored.
+    @Nullable
+    private static Map<String, List<String>> parseOptions(String[] args) {
+        Map<String, List<String>> options = new HashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length || !OPTIONS.contains(args[i].substring(2))) {
+                return null;
+            }
+            options.computeIfAbsent(args[i].substring(2), s -> new ArrayList<>()).add(args[i + 1]);
+        }
+        return options;
+    }
+}
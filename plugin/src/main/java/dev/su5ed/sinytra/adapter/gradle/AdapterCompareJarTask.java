@@ -1,35 +1,26 @@
 package dev.su5ed.sinytra.adapter.gradle;
 
-import com.google.common.base.Stopwatch;
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimap;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonElement;
-import com.mojang.serialization.JsonOps;
-import dev.su5ed.sinytra.adapter.gradle.provider.ClassProvider;
-import dev.su5ed.sinytra.adapter.gradle.provider.ZipClassProvider;
-import dev.su5ed.sinytra.adapter.patch.LVTOffsets;
-import dev.su5ed.sinytra.adapter.patch.Patch;
-import dev.su5ed.sinytra.adapter.patch.PatchInstance;
-import dev.su5ed.sinytra.adapter.patch.serialization.PatchSerialization;
-import dev.su5ed.sinytra.adapter.patch.util.MethodQualifier;
-import net.minecraftforge.srgutils.IMappingFile;
+import dev.su5ed.sinytra.adapter.gradle.analysis.AnalysisBudget;
 import org.gradle.api.DefaultTask;
+import org.gradle.api.file.ConfigurableFileCollection;
 import org.gradle.api.file.Directory;
+import org.gradle.api.file.DirectoryProperty;
+import org.gradle.api.file.ProjectLayout;
 import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.Property;
 import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.*;
+import org.gradle.workers.WorkQueue;
+import org.gradle.workers.WorkerExecutor;
 import org.slf4j.Logger;
 
+import javax.inject.Inject;
+import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.util.*;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 
 @CacheableTask
 public abstract class AdapterCompareJarTask extends DefaultTask {
@@ -45,97 +36,130 @@ public abstract class AdapterCompareJarTask extends DefaultTask {
     @PathSensitive(PathSensitivity.RELATIVE)
     public abstract RegularFileProperty getSrgToMcpMappings();
 
+    // Further dirty jars analyzed against the same clean jar, sharing its index and running concurrently with the main one
+    @InputFiles
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract ConfigurableFileCollection getAdditionalDirtyJars();
+
+    // Number of classes analyzed in each work item
+    @Internal
+    public abstract Property<Integer> getShardSize();
+
+    // Number of threads used by each worker process
+    @Internal
+    public abstract Property<Integer> getParallelism();
+
+    // Per-class results of previous runs, allowing only changed classes to be analyzed again
+    @Internal
+    public abstract DirectoryProperty getCacheDirectory();
+
+    // Maximum heap size of worker processes, keeping the analysis out of the Gradle daemon
+    @Internal
+    public abstract Property<String> getWorkerMaxHeap();
+
+    // Wall time in milliseconds after which the remaining methods of a class are skipped, 0 disables the limit
+    // Results then depend on the speed of the machine, so they are not cached when it's set.
+    @Input
+    public abstract Property<Long> getClassTimeBudget();
+
+    // Instructions compared for a single method after which it's skipped, 0 disables the limit
+    @Input
+    public abstract Property<Long> getMethodWorkBudget();
+
     @OutputFile
     public abstract RegularFileProperty getPatchDataOutput();
 
     @OutputFile
     public abstract RegularFileProperty getLVTOffsetDataOutput();
 
+    // Outputs of additional dirty jars, written to a subdirectory named after each jar
+    @OutputDirectory
+    public abstract DirectoryProperty getAdditionalOutputDirectory();
+
+    // Per-phase and per-class timings, allocations and patch counts of the analysis, with profiles of additional dirty jars in a targets subdirectory.
+    // Not an output, as timings only describe the run that measured them and must not be restored from the build cache.
+    @Internal
+    public abstract DirectoryProperty getReportDirectory();
+
     public AdapterCompareJarTask() {
-        Provider<Directory> outputDir = getProject().getLayout().getBuildDirectory().dir(getName());
+        Provider<Directory> outputDir = getProjectLayout().getBuildDirectory().dir(getName());
         getPatchDataOutput().convention(outputDir.map(dir -> dir.file("patch_data.json")));
         getLVTOffsetDataOutput().convention(outputDir.map(dir -> dir.file("lvt_offsets.json")));
+        getAdditionalOutputDirectory().convention(outputDir.map(dir -> dir.dir("targets")));
+        getReportDirectory().convention(getProjectLayout().getBuildDirectory().dir("reports/" + getName()));
+        getCacheDirectory().convention(outputDir.map(dir -> dir.dir("cache")));
+        getShardSize().convention(500);
+        getParallelism().convention(1);
+        getWorkerMaxHeap().convention("2G");
+        getClassTimeBudget().convention(0L);
+        getMethodWorkBudget().convention(50_000_000L);
+        getOutputs().doNotCacheIf("Class time budget is set", task -> getClassTimeBudget().get() > 0);
     }
 
+    // Only injected services are used, keeping the task compatible with the configuration cache
+    @Inject
+    protected abstract WorkerExecutor getWorkerExecutor();
+
+    @Inject
+    protected abstract ProjectLayout getProjectLayout();
+
     @TaskAction
     public void execute() throws IOException {
-        final Logger logger = getProject().getLogger();
+        final Logger logger = getLogger();
 
         logger.info("Generating Adapter patch data");
         logger.info("Clean jar: " + getCleanJar().get().getAsFile().getAbsolutePath());
         logger.info("Dirty jar: " + getDirtyJar().get().getAsFile().getAbsolutePath());
         logger.info("Mappings : " + getSrgToMcpMappings().get().getAsFile().getAbsolutePath());
 
-        List<Patch> patches = new ArrayList<>();
-        Multimap<ChangeCategory, String> info = HashMultimap.create();
-        Map<String, String> replacementCalls = new HashMap<>();
-        Map<String, Map<MethodQualifier, List<LVTOffsets.Offset>>> offsets = new HashMap<>();
-        Map<String, Map<MethodQualifier, List<LVTOffsets.Swap>>> reorders = new HashMap<>();
-
-        IMappingFile mappings = IMappingFile.load(getSrgToMcpMappings().get().getAsFile());
-
-        try (final ZipFile cleanJar = new ZipFile(getCleanJar().get().getAsFile());
-             final ZipFile dirtyJar = new ZipFile(getDirtyJar().get().getAsFile())
-        ) {
-            ClassProvider cleanClassProvider = new ZipClassProvider(cleanJar);
-            ClassProvider dirtyClassProvider = new ZipClassProvider(dirtyJar);
-            AtomicInteger counter = new AtomicInteger();
-            Stopwatch stopwatch = Stopwatch.createStarted();
-
-            Collection<ClassAnalyzer> analyzers = new ArrayList<>();
-            dirtyJar.stream().forEach(entry -> {
-                logger.debug("Processing patched entry {}", entry.getName());
-
-                final ZipEntry cleanEntry = cleanJar.getEntry(entry.getName());
-                // Skip classes added by Forge
-                if (cleanEntry == null) {
-                    return;
-                }
-
-                try {
-                    byte[] cleanData = cleanJar.getInputStream(cleanEntry).readAllBytes();
-                    byte[] dirtyData = dirtyJar.getInputStream(entry).readAllBytes();
-
-                    ClassAnalyzer analyzer = ClassAnalyzer.create(cleanData, dirtyData, mappings, cleanClassProvider, dirtyClassProvider);
-                    analyzers.add(analyzer);
-                    analyzer.analyze(patches, info, replacementCalls, offsets, reorders);
-
-                    counter.getAndIncrement();
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
-            });
-
-            List<PatchInstance> postPatches = new ArrayList<>();
-            logger.info("");
-            logger.info("===== Running post-analysis =====");
-            for (ClassAnalyzer analyzer : analyzers) {
-                analyzer.postAnalyze(postPatches, replacementCalls);
-            }
-            logger.info("Adding additonal {} patches from post-analysis", postPatches.size());
-            patches.addAll(postPatches);
-
-            stopwatch.stop();
-            logger.info("Analyzed {} classes in {} ms", counter.get(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
+        // The main target keeps using the cache directory directly
+        Path reportDir = getReportDirectory().get().getAsFile().toPath();
+        List<AdapterDataGenerator.Target> targets = new ArrayList<>();
+        targets.add(new AdapterDataGenerator.Target("", getDirtyJar().get().getAsFile().toPath(), getPatchDataOutput().get().getAsFile().toPath(), getLVTOffsetDataOutput().get().getAsFile().toPath(), reportDir.resolve("analysis_profile.json")));
+        for (File jar : getAdditionalDirtyJars()) {
+            logger.info("Additional dirty jar: " + jar.getAbsolutePath());
+            targets.add(AdapterDataGenerator.Target.inDirectory(jar.toPath(), getAdditionalOutputDirectory().get().getAsFile().toPath(), reportDir.resolve("targets")));
+        }
 
-            logger.info("Generated {} patches", patches.size());
+        AdapterDataGenerator generator = new AdapterDataGenerator(getCleanJar().get().getAsFile().toPath(), getSrgToMcpMappings().get().getAsFile().toPath(),
+            getCacheDirectory().get().getAsFile().toPath(), getTemporaryDir().toPath(), getShardSize().get(), new AnalysisBudget(getClassTimeBudget().get(), getMethodWorkBudget().get()), logger);
+        WorkQueue queue = getWorkerExecutor().processIsolation(spec -> spec.forkOptions(options -> options.setMaxHeapSize(getWorkerMaxHeap().get())));
+        // Each shard runs as a separate work item in a worker process
+        generator.generate(targets, new AdapterDataGenerator.ShardExecutor() {
+            @Override
+            public void analyze(Path dirtyJar, Path classHierarchy, Path methodMappings, List<String> entries, AnalysisBudget budget, Path output) {
+                submit(queue, dirtyJar, output, parameters -> {
+                    parameters.getMethodMappings().set(methodMappings.toFile());
+                    parameters.getClassHierarchy().set(classHierarchy.toFile());
+                    parameters.getEntries().set(entries);
+                    parameters.getClassTimeBudget().set(budget.classTimeMillis());
+                    parameters.getMethodWorkBudget().set(budget.methodWork());
+                });
+            }
 
-            logger.info("\n{} fields had their type changed", info.get(ChangeCategory.MODIFY_FIELD).size());
-            info.get(ChangeCategory.MODIFY_FIELD).forEach(logger::info);
-            logger.info("\n{} fields were added", info.get(ChangeCategory.ADD_FIELD).size());
-            info.get(ChangeCategory.ADD_FIELD).forEach(logger::info);
-            logger.info("\n{} fields were removed", info.get(ChangeCategory.REMOVE_FIELD).size());
-            info.get(ChangeCategory.REMOVE_FIELD).forEach(logger::info);
-        }
+            @Override
+            public void postAnalyze(Path dirtyJar, Path summaries, Path replacementCalls, Path output) {
+                submit(queue, dirtyJar, output, parameters -> {
+                    parameters.getSummaries().set(summaries.toFile());
+                    parameters.getReplacementCalls().set(replacementCalls.toFile());
+                });
+            }
 
-        Gson gson = new GsonBuilder().disableHtmlEscaping().create();
-        JsonElement patchDataJson = PatchSerialization.serialize(patches, JsonOps.INSTANCE);
-        String patchDataJsonStr = gson.toJson(patchDataJson);
-        Files.writeString(getPatchDataOutput().get().getAsFile().toPath(), patchDataJsonStr, StandardCharsets.UTF_8);
+            @Override
+            public void await() {
+                queue.await();
+            }
+        });
+        generator.getPhaseTimings().forEach((phase, time) -> logger.info("Phase {} took {} ms", phase, time));
+    }
 
-        LVTOffsets lvtOffsets = new LVTOffsets(offsets, reorders);
-        JsonElement offsetJson = lvtOffsets.toJson();
-        String offsetJsonStr = gson.toJson(offsetJson);
-        Files.writeString(getLVTOffsetDataOutput().get().getAsFile().toPath(), offsetJsonStr, StandardCharsets.UTF_8);
+    private void submit(WorkQueue queue, Path dirtyJar, Path output, Consumer<ClassAnalysisWorkAction.Parameters> configure) {
+        queue.submit(ClassAnalysisWorkAction.class, parameters -> {
+            parameters.getCleanJar().set(getCleanJar());
+            parameters.getDirtyJar().set(dirtyJar.toFile());
+            parameters.getParallelism().set(getParallelism());
+            configure.accept(parameters);
+            parameters.getOutput().set(output.toFile());
+        });
     }
 }
@@ -0,0 +1,381 @@
+package dev.su5ed.sinytra.adapter.gradle;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+import com.google.common.hash.HashCode;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonWriter;
+import com.mojang.serialization.JsonOps;
+import dev.su5ed.sinytra.adapter.gradle.analysis.AnalysisBudget;
+import dev.su5ed.sinytra.adapter.gradle.provider.MappedZipFile;
+import dev.su5ed.sinytra.adapter.patch.LVTOffsets;
+import dev.su5ed.sinytra.adapter.patch.Patch;
+import dev.su5ed.sinytra.adapter.patch.analysis.ClassHierarchy;
+import dev.su5ed.sinytra.adapter.patch.serialization.PatchSerialization;
+import dev.su5ed.sinytra.adapter.patch.util.ExtraCodecs;
+import dev.su5ed.sinytra.adapter.patch.util.MethodQualifier;
+import org.objectweb.asm.ClassReader;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+// Generates patch data and LVT offsets of one or more dirty jars against a shared clean jar,
+// running the analysis of each shard of classes through a ShardExecutor.
+// The clean jar is indexed once, and the shards of all targets are submitted together so that they run concurrently.
+// Used by both the Gradle task and the standalone CLI, and doesn't depend on the Gradle API.
+public class AdapterDataGenerator {
+    // Number of classes listed in the profile summary of each target
+    private static final int SLOWEST_CLASSES = 10;
+
+    public interface ShardExecutor {
+        void analyze(Path dirtyJar, Path classHierarchy, Path methodMappings, List<String> entries, AnalysisBudget budget, Path output) throws IOException;
+
+        void postAnalyze(Path dirtyJar, Path summaries, Path replacementCalls, Path output) throws IOException;
+
+        // Waits for all submitted shards to complete
+        void await();
+    }
+
+    // The name separates the cache and work files of each target, an empty name uses the directories directly
+    public record Target(String name, Path dirtyJar, Path patchDataOutput, Path lvtOffsetDataOutput, Path profileOutput) {
+        // Target named after the dirty jar, writing its outputs and profile to subdirectories of the same name
+        public static Target inDirectory(Path dirtyJar, Path outputDirectory, Path reportDirectory) {
+            String name = dirtyJar.getFileName().toString().replaceFirst("\\.jar$", "");
+            Path directory = outputDirectory.resolve(name);
+            return new Target(name, dirtyJar, directory.resolve("patch_data.json"), directory.resolve("lvt_offsets.json"), reportDirectory.resolve(name).resolve("analysis_profile.json"));
+        }
+    }
+
+    private final Path cleanJarPath;
+    private final Path mappingsPath;
+    private final Path cacheDirectory;
+    private final Path workDirectory;
+    private final int shardSize;
+    private final AnalysisBudget budget;
+    private final Logger logger;
+    // Duration of each phase in milliseconds, in execution order
+    private final Map<String, Long> phaseTimings = new LinkedHashMap<>();
+
+    public AdapterDataGenerator(Path cleanJar, Path mappings, Path cacheDirectory, Path workDirectory, int shardSize, AnalysisBudget budget, Logger logger) {
+        this.cleanJarPath = cleanJar;
+        this.mappingsPath = mappings;
+        this.cacheDirectory = cacheDirectory;
+        this.workDirectory = workDirectory;
+        this.shardSize = shardSize;
+        this.budget = budget;
+        this.logger = logger;
+    }
+
+    public Map<String, Long> getPhaseTimings() {
+        return Collections.unmodifiableMap(this.phaseTimings);
+    }
+
+    public void generate(List<Target> targets, ShardExecutor executor) throws IOException {
+        if (targets.stream().map(Target::name).distinct().count() != targets.size()) {
+            throw new IllegalArgumentException("Duplicate target names in " + targets.stream().map(Target::name).toList());
+        }
+        Stopwatch stopwatch = Stopwatch.createStarted();
+        Stopwatch phase = Stopwatch.createStarted();
+        // The clean side is shared by all targets and only read from here on
+        Map<String, HashCode> cleanHashes;
+        ClassHierarchy.Builder cleanHierarchy = ClassHierarchy.builder();
+        try (final MappedZipFile cleanJar = new MappedZipFile(this.cleanJarPath)) {
+            cleanHashes = indexEntries(cleanJar, cleanHierarchy);
+        }
+        HashCode mappingsHash = AnalysisCache.hash(Files.readAllBytes(this.mappingsPath));
+        // Parsed once here and shared with all workers in binary form, which is reused as long as the mappings don't change
+        Path methodMappings = this.cacheDirectory.resolve("method_mappings.bin");
+        MethodMappings.updateCache(this.mappingsPath, mappingsHash, methodMappings);
+        List<TargetRun> runs = new ArrayList<>();
+        for (Target target : targets) {
+            runs.add(new TargetRun(target, cleanHashes, cleanHierarchy, mappingsHash));
+        }
+        recordPhase("index", phase);
+
+        for (TargetRun run : runs) {
+            run.submitAnalysis(executor, methodMappings);
+        }
+        executor.await();
+        for (TargetRun run : runs) {
+            run.mergeAnalysis();
+        }
+        recordPhase("analysis", phase);
+
+        this.logger.info("");
+        this.logger.info("===== Running post-analysis =====");
+        for (TargetRun run : runs) {
+            run.submitPostAnalysis(executor);
+        }
+        executor.await();
+        for (TargetRun run : runs) {
+            run.mergePostAnalysis();
+        }
+        recordPhase("post-analysis", phase);
+
+        for (TargetRun run : runs) {
+            run.writeOutputs();
+        }
+        recordPhase("output", phase);
+        for (TargetRun run : runs) {
+            run.writeProfile();
+        }
+        this.logger.info("Generated patch data for {} targets in {} ms", runs.size(), stopwatch.elapsed(TimeUnit.MILLISECONDS));
+    }
+
+    // Analysis state of a single dirty jar
+    private class TargetRun {
+        private final Target target;
+        private final Path workDirectory;
+        private final List<String> entries = new ArrayList<>();
+        private final int totalEntries;
+        private final AnalysisCache cache;
+        private final Path hierarchyFile;
+
+        private final List<Patch> patches = new ArrayList<>();
+        private final Multimap<ChangeCategory, String> info = LinkedHashMultimap.create();
+        private final Map<String, String> replacementCalls = new LinkedHashMap<>();
+        private final Map<String, Map<MethodQualifier, List<LVTOffsets.Offset>>> offsets = new LinkedHashMap<>();
+        private final Map<String, Map<MethodQualifier, List<LVTOffsets.Swap>>> reorders = new LinkedHashMap<>();
+
+        // Profiles of classes analyzed in this run, classes with cached results aren't profiled
+        private final Map<String, ClassProfile> profiles = new LinkedHashMap<>();
+        // Methods skipped for going over the analysis budget, in entry order
+        private final List<AnalysisBudget.Cutoff> cutoffs = new ArrayList<>();
+
+        private List<List<String>> shards;
+        private final List<Path> shardOutputs = new ArrayList<>();
+
+        public TargetRun(Target target, Map<String, HashCode> cleanHashes, ClassHierarchy.Builder cleanHierarchy, HashCode mappingsHash) throws IOException {
+            this.target = target;
+            this.workDirectory = AdapterDataGenerator.this.workDirectory.resolve(target.name());
+            Map<String, HashCode> dirtyHashes;
+            // Dirty classes are added last and replace their clean versions in the hierarchy
+            ClassHierarchy.Builder hierarchy = cleanHierarchy.copy();
+            try (final MappedZipFile dirtyJar = new MappedZipFile(target.dirtyJar())) {
+                for (String name : dirtyJar.getEntryNames()) {
+                    // Skip classes added by Forge
+                    if (cleanHashes.containsKey(name)) {
+                        this.entries.add(name);
+                    }
+                }
+                dirtyHashes = indexEntries(dirtyJar, hierarchy);
+            }
+            // Entries are processed in name order, so that the outputs don't depend on how the jars were packed
+            Collections.sort(this.entries);
+            // Byte-identical classes can't produce any patches and are skipped entirely
+            this.totalEntries = this.entries.size();
+            this.entries.removeIf(entry -> cleanHashes.get(entry).equals(dirtyHashes.get(entry)));
+            log("Skipping {} unchanged classes", this.totalEntries - this.entries.size());
+            this.cache = new AnalysisCache(AdapterDataGenerator.this.cacheDirectory.resolve(target.name()), mappingsHash, AdapterDataGenerator.this.budget.methodWork(), cleanHashes, dirtyHashes);
+
+            Files.createDirectories(this.workDirectory);
+            this.hierarchyFile = this.workDirectory.resolve("class_hierarchy.bin");
+            AnalysisShards.writeClassHierarchy(this.hierarchyFile, hierarchy.build());
+        }
+
+        public void submitAnalysis(ShardExecutor executor, Path methodMappings) throws IOException {
+            // Only analyze classes that changed since the last run, or depend on classes that did
+            List<String> changed = this.entries.stream().filter(entry -> this.cache.getAnalysis(entry) == null).toList();
+            log("Analyzing {} classes, reusing cached results for {} classes", changed.size(), this.entries.size() - changed.size());
+            this.shards = Lists.partition(changed, AdapterDataGenerator.this.shardSize);
+            this.shardOutputs.clear();
+            for (int i = 0; i < this.shards.size(); i++) {
+                Path output = this.workDirectory.resolve("analysis_%d.json".formatted(i));
+                this.shardOutputs.add(output);
+                executor.analyze(this.target.dirtyJar(), this.hierarchyFile, methodMappings, this.shards.get(i), AdapterDataGenerator.this.budget, output);
+            }
+        }
+
+        public void mergeAnalysis() throws IOException {
+            for (int i = 0; i < this.shards.size(); i++) {
+                List<String> shard = this.shards.get(i);
+                List<AnalysisCache.Analysis> results = AnalysisShards.readOutput(this.shardOutputs.get(i), AnalysisCache.Analysis.CODEC);
+                List<ClassProfile> shardProfiles = AnalysisShards.readOutput(AnalysisShards.profileOutput(this.shardOutputs.get(i)), ClassProfile.CODEC);
+                for (int j = 0; j < shard.size(); j++) {
+                    this.cache.putAnalysis(shard.get(j), results.get(j));
+                    this.profiles.put(shard.get(j), shardProfiles.get(j));
+                }
+            }
+            // Results are merged in entry order, which keeps the outputs independent of scheduling and caching
+            for (String entry : this.entries) {
+                AnalysisCache.Analysis analysis = this.cache.getAnalysis(entry);
+                analysis.result().mergeInto(this.patches, this.info, this.replacementCalls, this.offsets, this.reorders);
+                this.cutoffs.addAll(analysis.cutoffs());
+            }
+            for (AnalysisBudget.Cutoff cutoff : this.cutoffs) {
+                warn("Analysis phase {} of class {} went over its {} budget, skipped methods: {}", cutoff.phase(), cutoff.className(),
+                    cutoff.reason().name().toLowerCase(Locale.ROOT), String.join(", ", cutoff.methods()));
+            }
+        }
+
+        public void submitPostAnalysis(ShardExecutor executor) throws IOException {
+            this.cache.indexReplacementCalls(this.replacementCalls);
+            List<String> postChanged = this.entries.stream().filter(entry -> this.cache.getPostAnalysis(entry) == null).toList();
+            log("Post-analyzing {} classes, reusing cached results for {} classes", postChanged.size(), this.entries.size() - postChanged.size());
+            Path replacementCallsFile = this.workDirectory.resolve("replacement_calls.json");
+            AnalysisShards.writeReplacementCalls(replacementCallsFile, this.replacementCalls);
+            this.shards = Lists.partition(postChanged, AdapterDataGenerator.this.shardSize);
+            this.shardOutputs.clear();
+            for (int i = 0; i < this.shards.size(); i++) {
+                // Post-analysis only needs the summaries of analyzed classes, which are much smaller than the classes themselves
+                Path summaryFile = this.workDirectory.resolve("summaries_%d.json".formatted(i));
+                List<ClassSummary> summaries = this.shards.get(i).stream().map(entry -> this.cache.getAnalysis(entry).summary()).toList();
+                AnalysisShards.writeOutput(summaryFile, ClassSummary.CODEC, summaries);
+                Path output = this.workDirectory.resolve("post_analysis_%d.json".formatted(i));
+                this.shardOutputs.add(output);
+                executor.postAnalyze(this.target.dirtyJar(), summaryFile, replacementCallsFile, output);
+            }
+        }
+
+        public void mergePostAnalysis() throws IOException {
+            for (int i = 0; i < this.shards.size(); i++) {
+                List<String> shard = this.shards.get(i);
+                List<AnalysisCache.PostAnalysis> results = AnalysisShards.readOutput(this.shardOutputs.get(i), AnalysisCache.PostAnalysis.CODEC);
+                List<ClassProfile> shardProfiles = AnalysisShards.readOutput(AnalysisShards.profileOutput(this.shardOutputs.get(i)), ClassProfile.CODEC);
+                for (int j = 0; j < shard.size(); j++) {
+                    this.cache.putPostAnalysis(shard.get(j), results.get(j));
+                    this.profiles.merge(shard.get(j), shardProfiles.get(j), ClassProfile::merge);
+                }
+            }
+            List<Patch> postPatches = new ArrayList<>();
+            for (String entry : this.entries) {
+                postPatches.addAll(this.cache.getPostAnalysis(entry));
+            }
+            log("Adding additonal {} patches from post-analysis", postPatches.size());
+            this.patches.addAll(postPatches);
+            this.cache.save();
+        }
+
+        public void writeOutputs() throws IOException {
+            Files.createDirectories(this.target.patchDataOutput().getParent());
+            Files.createDirectories(this.target.lvtOffsetDataOutput().getParent());
+            Logger logger = AdapterDataGenerator.this.logger;
+            log("Analyzed {} classes", this.totalEntries);
+            log("Generated {} patches", this.patches.size());
+
+            logger.info("\n{} fields had their type changed", this.info.get(ChangeCategory.MODIFY_FIELD).size());
+            this.info.get(ChangeCategory.MODIFY_FIELD).forEach(logger::info);
+            logger.info("\n{} fields were added", this.info.get(ChangeCategory.ADD_FIELD).size());
+            this.info.get(ChangeCategory.ADD_FIELD).forEach(logger::info);
+            logger.info("\n{} fields were removed", this.info.get(ChangeCategory.REMOVE_FIELD).size());
+            this.info.get(ChangeCategory.REMOVE_FIELD).forEach(logger::info);
+
+            // Outputs are streamed to the files instead of building them in memory first
+            Gson gson = new GsonBuilder().disableHtmlEscaping().create();
+            try (JsonWriter writer = gson.newJsonWriter(Files.newBufferedWriter(this.target.patchDataOutput(), StandardCharsets.UTF_8))) {
+                PatchSerialization.serialize(this.patches, writer);
+            }
+
+            LVTOffsets lvtOffsets = new LVTOffsets(this.offsets, this.reorders);
+            try (JsonWriter writer = gson.newJsonWriter(Files.newBufferedWriter(this.target.lvtOffsetDataOutput(), StandardCharsets.UTF_8))) {
+                lvtOffsets.write(writer);
+            }
+        }
+
+        // Machine-readable report of where the analysis spent its time, listing classes from slowest to fastest
+        public void writeProfile() throws IOException {
+            List<ClassProfile> classes = new ArrayList<>(this.profiles.values());
+            classes.sort(Comparator.comparingLong(ClassProfile::timeNanos).reversed().thenComparing(ClassProfile::name));
+            // Totals of each analyzer phase over all profiled classes, in the order the phases ran
+            Map<String, ClassProfile.Phase> phases = new LinkedHashMap<>();
+            Map<String, Integer> phaseClasses = new HashMap<>();
+            for (ClassProfile profile : classes) {
+                for (ClassProfile.Phase phase : profile.phases()) {
+                    phases.merge(phase.name(), phase, (a, b) -> new ClassProfile.Phase(a.name(), a.timeNanos() + b.timeNanos(),
+                        a.allocatedBytes() == -1 || b.allocatedBytes() == -1 ? -1 : a.allocatedBytes() + b.allocatedBytes(), a.patches() + b.patches()));
+                    phaseClasses.merge(phase.name(), 1, Integer::sum);
+                }
+            }
+
+            Files.createDirectories(this.target.profileOutput().getParent());
+            Gson gson = new GsonBuilder().disableHtmlEscaping().setPrettyPrinting().create();
+            try (JsonWriter writer = gson.newJsonWriter(Files.newBufferedWriter(this.target.profileOutput(), StandardCharsets.UTF_8))) {
+                writer.beginObject();
+                writer.name("profiledClasses").value(classes.size());
+                writer.name("cachedClasses").value(this.entries.size() - classes.size());
+                writer.name("generatorPhaseMillis").beginObject();
+                for (Map.Entry<String, Long> entry : AdapterDataGenerator.this.phaseTimings.entrySet()) {
+                    writer.name(entry.getKey()).value(entry.getValue());
+                }
+                writer.endObject();
+                writer.name("analyzerPhases").beginArray();
+                for (ClassProfile.Phase phase : phases.values()) {
+                    writer.beginObject();
+                    writer.name("name").value(phase.name());
+                    writer.name("classes").value(phaseClasses.get(phase.name()));
+                    writer.name("timeNanos").value(phase.timeNanos());
+                    writer.name("allocatedBytes").value(phase.allocatedBytes());
+                    writer.name("patches").value(phase.patches());
+                    writer.endObject();
+                }
+                writer.endArray();
+                writer.name("cutoffs").beginArray();
+                for (AnalysisBudget.Cutoff cutoff : this.cutoffs) {
+                    ExtraCodecs.writeJson(writer, AnalysisBudget.Cutoff.CODEC.encodeStart(JsonOps.INSTANCE, cutoff).getOrThrow(false, s -> {
+                        throw new RuntimeException("Error serializing cutoff of " + cutoff.className() + ": " + s);
+                    }));
+                }
+                writer.endArray();
+                writer.name("classes").beginArray();
+                for (ClassProfile profile : classes) {
+                    ExtraCodecs.writeJson(writer, ClassProfile.CODEC.encodeStart(JsonOps.INSTANCE, profile).getOrThrow(false, s -> {
+                        throw new RuntimeException("Error serializing profile of " + profile.name() + ": " + s);
+                    }));
+                }
+                writer.endArray();
+                writer.endObject();
+            }
+
+            int count = Math.min(SLOWEST_CLASSES, classes.size());
+            if (count > 0) {
+                log("{} slowest classes:", count);
+                for (ClassProfile profile : classes.subList(0, count)) {
+                    log("  {} ms, {} KiB allocated, {} patches - {}", TimeUnit.NANOSECONDS.toMillis(profile.timeNanos()),
+                        profile.allocatedBytes() == -1 ? "?" : profile.allocatedBytes() / 1024, profile.patches(), profile.name());
+                }
+            }
+            log("Wrote analysis profile to {}", this.target.profileOutput());
+        }
+
+        // Messages of multiple targets are prefixed with the target name
+        private void log(String message, Object... args) {
+            AdapterDataGenerator.this.logger.info(prefix(message), args);
+        }
+
+        private void warn(String message, Object... args) {
+            AdapterDataGenerator.this.logger.warn(prefix(message), args);
+        }
+
+        private String prefix(String message) {
+            return this.target.name().isEmpty() ? message : "[" + this.target.name() + "] " + message;
+        }
+    }
+
+    private void recordPhase(String name, Stopwatch phase) {
+        this.phaseTimings.put(name, phase.elapsed(TimeUnit.MILLISECONDS));
+        phase.reset().start();
+    }
+
+    // Hashes all entries and adds classes to the hierarchy in a single pass over the jar
+    private static Map<String, HashCode> indexEntries(MappedZipFile zipFile, ClassHierarchy.Builder hierarchy) throws IOException {
+        Map<String, HashCode> hashes = new HashMap<>();
+        for (String name : zipFile.getEntryNames()) {
+            if (name.endsWith(".class")) {
+                byte[] data = zipFile.getBytes(name);
+                hashes.put(name, AnalysisCache.hash(data));
+                hierarchy.add(new ClassReader(data));
+            } else {
+                hashes.put(name, AnalysisCache.hash(zipFile.getData(name)));
+            }
+        }
+        return hashes;
+    }
+}
@@ -8,6 +8,8 @@ import net.minecraftforge.gradle.mcp.tasks.GenerateSRG;
 import org.gradle.api.Plugin;
 import org.gradle.api.Project;
 import org.gradle.api.plugins.AppliedPlugin;
+import org.gradle.api.plugins.ExtraPropertiesExtension;
+import org.gradle.api.provider.Provider;
 import org.gradle.api.tasks.TaskProvider;
 
 import java.io.File;
@@ -28,22 +30,27 @@ public class AdapterPlugin implements Plugin<Project> {
     private static void applyPlugin(Project project, AppliedPlugin neoGradle) {
         project.getLogger().lifecycle("Applying Sinytra Adapter plugin for {}", neoGradle.getId());
 
+        // Providers capture only the objects they need. They are evaluated when the configuration cache entry
+        // is stored, which keeps just the resulting files.
+        ExtraPropertiesExtension extraProperties = project.getExtensions().getExtraProperties();
+        Provider<String> mcpVersion = project.getProviders().provider(() -> (String) extraProperties.get("MCP_VERSION"));
+        File userRepo = Utils.getCache(project, "minecraft_user_repo");
+        Provider<File> binpatchedArtifact = project.getConfigurations().named("minecraft")
+            .map(configuration -> getBinpatchedArtifact(userRepo, configuration.getDependencies().iterator().next().getVersion()));
+        TaskProvider<GenerateSRG> createSrgToMcp = project.getTasks().named("createSrgToMcp", GenerateSRG.class);
+
         project.getTasks().register("generateAdapterData", AdapterCompareJarTask.class, task -> {
-            task.getCleanJar().fileProvider(project.provider(() -> {
-                String mcpVersion = (String) project.getExtensions().getExtraProperties().get("MCP_VERSION");
-                return MavenArtifactDownloader.generate(project, CLEAN_ARTIFACT.formatted(mcpVersion), true);
-            }));
-            task.getDirtyJar().fileProvider(project.provider(() -> getBinpatchedArtifact(project)));
-            TaskProvider<GenerateSRG> createSrgToMcp = project.getTasks().named("createSrgToMcp", GenerateSRG.class);
+            // NeoGradle needs the project to generate the clean artifact, which also happens when the cache entry is stored
+            task.getCleanJar().fileProvider(mcpVersion.map(version -> MavenArtifactDownloader.generate(project, CLEAN_ARTIFACT.formatted(version), true)));
+            task.getDirtyJar().fileProvider(binpatchedArtifact);
             task.getSrgToMcpMappings().set(createSrgToMcp.flatMap(GenerateSRG::getOutput));
         });
     }
 
-    private static File getBinpatchedArtifact(Project project) {
-        String forgeVersion = project.getConfigurations().getByName("minecraft").getDependencies().iterator().next().getVersion();
+    private static File getBinpatchedArtifact(File userRepo, String forgeVersion) {
         String[] parts = forgeVersion.split("_mapped_");
         String path = Artifact.from("net.minecraftforge", "forge", parts[0], "binpatched", "jar").getLocalPath();
-        File file = Utils.getCache(project, "minecraft_user_repo").toPath().resolve(path).toFile();
+        File file = userRepo.toPath().resolve(path).toFile();
         if (!file.exists()) {
             throw new IllegalStateException("Missing binpatched artifact.");
         }
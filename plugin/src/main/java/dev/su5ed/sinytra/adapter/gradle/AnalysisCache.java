@@ -0,0 +1,233 @@
+package dev.su5ed.sinytra.adapter.gradle;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.mojang.datafixers.util.Pair;
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.JsonOps;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import dev.su5ed.sinytra.adapter.gradle.analysis.AnalysisBudget;
+import dev.su5ed.sinytra.adapter.patch.Patch;
+import dev.su5ed.sinytra.adapter.patch.serialization.PatchSerialization;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+// Per-class analysis results of previous runs, keyed by the class hashes in both jars, the mappings hash, the method work budget and the analyzer version.
+// The work budget decides which methods are cut off, while results cut off by the class time budget are never saved.
+// Results also depend on other classes looked up during analysis, and post-analysis on replacement calls found in other classes,
+// so entries record these and are only reused when they are unchanged as well.
+public class AnalysisCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger("AnalysisCache");
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+    private static final String EXTENSION = ".json";
+
+    // Cut off results are incomplete, they are used for this run but never saved
+    public record Analysis(ClassAnalysisResult result, ClassSummary summary, List<String> dependencies, List<AnalysisBudget.Cutoff> cutoffs) {
+        public static final Codec<Analysis> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+            ClassAnalysisResult.CODEC.fieldOf("result").forGetter(Analysis::result),
+            ClassSummary.CODEC.fieldOf("summary").forGetter(Analysis::summary),
+            Codec.STRING.listOf().fieldOf("dependencies").forGetter(Analysis::dependencies),
+            AnalysisBudget.Cutoff.CODEC.listOf().optionalFieldOf("cutoffs", List.of()).forGetter(Analysis::cutoffs)
+        ).apply(instance, Analysis::new));
+    }
+
+    // Call owners are the owner descriptors of all replacement calls looked up in post-analysis
+    public record PostAnalysis(List<Patch> patches, List<String> dependencies, List<String> callOwners) {
+        public static final Codec<PostAnalysis> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+            PatchSerialization.PATCH_INSTANCE_CODEC.listOf().fieldOf("patches").forGetter(PostAnalysis::patches),
+            Codec.STRING.listOf().fieldOf("dependencies").forGetter(PostAnalysis::dependencies),
+            Codec.STRING.listOf().fieldOf("callOwners").forGetter(PostAnalysis::callOwners)
+        ).apply(instance, PostAnalysis::new));
+    }
+
+    private record Entry(Optional<Analysis> analysis, String analysisFingerprint, Optional<PostAnalysis> postAnalysis, String postAnalysisFingerprint) {
+        public static final Codec<Entry> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+            Analysis.CODEC.optionalFieldOf("analysis").forGetter(Entry::analysis),
+            Codec.STRING.optionalFieldOf("analysisFingerprint", "").forGetter(Entry::analysisFingerprint),
+            PostAnalysis.CODEC.optionalFieldOf("postAnalysis").forGetter(Entry::postAnalysis),
+            Codec.STRING.optionalFieldOf("postAnalysisFingerprint", "").forGetter(Entry::postAnalysisFingerprint)
+        ).apply(instance, Entry::new));
+
+        private static final Entry EMPTY = new Entry(Optional.empty(), "", Optional.empty(), "");
+    }
+
+    private final Path directory;
+    private final HashCode mappingsHash;
+    private final long methodWorkBudget;
+    private final Map<String, HashCode> cleanHashes;
+    private final Map<String, HashCode> dirtyHashes;
+    // Entries accessed in this run by jar entry name
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Set<String> modified = new HashSet<>();
+    // Replacement calls grouped by the descriptor of their owner
+    private final Map<String, SortedMap<String, String>> replacementsByOwner = new HashMap<>();
+
+    public AnalysisCache(Path directory, HashCode mappingsHash, long methodWorkBudget, Map<String, HashCode> cleanHashes, Map<String, HashCode> dirtyHashes) {
+        this.directory = directory;
+        this.mappingsHash = mappingsHash;
+        this.methodWorkBudget = methodWorkBudget;
+        this.cleanHashes = cleanHashes;
+        this.dirtyHashes = dirtyHashes;
+    }
+
+    public static HashCode hash(byte[] data) {
+        return HASH_FUNCTION.hashBytes(data);
+    }
+
+    public static HashCode hash(ByteBuffer data) {
+        return HASH_FUNCTION.hashBytes(data);
+    }
+
+    // Owner descriptor of a call qualifier in the format produced by MethodCallAnalyzer#getCallQualifier
+    public static String getCallOwner(String callQualifier) {
+        return callQualifier.substring(0, callQualifier.indexOf(';') + 1);
+    }
+
+    @Nullable
+    public Analysis getAnalysis(String name) {
+        Entry entry = getEntry(name);
+        return entry.analysis()
+            .filter(analysis -> entry.analysisFingerprint().equals(fingerprintDependencies(analysis.dependencies()).toString()))
+            .orElse(null);
+    }
+
+    public void putAnalysis(String name, Analysis analysis) {
+        // New analysis results invalidate the previous post-analysis
+        this.entries.put(name, new Entry(Optional.of(analysis), fingerprintDependencies(analysis.dependencies()).toString(), Optional.empty(), ""));
+        this.modified.add(name);
+    }
+
+    // Must be called with the complete replacement calls before accessing post-analysis results
+    public void indexReplacementCalls(Map<String, String> replacementCalls) {
+        this.replacementsByOwner.clear();
+        replacementCalls.forEach((replacement, original) -> this.replacementsByOwner.computeIfAbsent(getCallOwner(replacement), s -> new TreeMap<>()).put(replacement, original));
+    }
+
+    @Nullable
+    public List<Patch> getPostAnalysis(String name) {
+        Entry entry = getEntry(name);
+        return entry.postAnalysis()
+            .filter(post -> entry.postAnalysisFingerprint().equals(fingerprintPostAnalysis(post).toString()))
+            .map(PostAnalysis::patches)
+            .orElse(null);
+    }
+
+    public void putPostAnalysis(String name, PostAnalysis postAnalysis) {
+        Entry entry = getEntry(name);
+        this.entries.put(name, new Entry(entry.analysis(), entry.analysisFingerprint(), Optional.of(postAnalysis), fingerprintPostAnalysis(postAnalysis).toString()));
+        this.modified.add(name);
+    }
+
+    // Writes modified entries and removes those not accessed in this run
+    public void save() throws IOException {
+        Files.createDirectories(this.directory);
+        Set<String> used = new HashSet<>();
+        for (Map.Entry<String, Entry> mapEntry : this.entries.entrySet()) {
+            if (mapEntry.getValue().analysis().filter(analysis -> !analysis.cutoffs().isEmpty()).isPresent()) {
+                continue;
+            }
+            String fileName = getKey(mapEntry.getKey()) + EXTENSION;
+            used.add(fileName);
+            if (this.modified.contains(mapEntry.getKey())) {
+                JsonElement json = Entry.CODEC.encodeStart(JsonOps.INSTANCE, mapEntry.getValue()).getOrThrow(false, s -> {
+                    throw new RuntimeException("Error serializing analysis cache entry: " + s);
+                });
+                Files.writeString(this.directory.resolve(fileName), GSON.toJson(json), StandardCharsets.UTF_8);
+            }
+        }
+        try (Stream<Path> stream = Files.list(this.directory)) {
+            for (Path path : (Iterable<Path>) stream::iterator) {
+                String fileName = path.getFileName().toString();
+                if (fileName.endsWith(EXTENSION) && !used.contains(fileName)) {
+                    Files.delete(path);
+                }
+            }
+        }
+        this.modified.clear();
+    }
+
+    private Entry getEntry(String name) {
+        return this.entries.computeIfAbsent(name, this::loadEntry);
+    }
+
+    private Entry loadEntry(String name) {
+        Path path = this.directory.resolve(getKey(name) + EXTENSION);
+        if (Files.exists(path)) {
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                JsonElement json = JsonParser.parseReader(reader);
+                return Entry.CODEC.decode(JsonOps.INSTANCE, json).result()
+                    .map(Pair::getFirst)
+                    .orElse(Entry.EMPTY);
+            } catch (Exception e) {
+                LOGGER.warn("Ignoring unreadable analysis cache entry {}", path, e);
+            }
+        }
+        return Entry.EMPTY;
+    }
+
+    private String getKey(String name) {
+        return HASH_FUNCTION.newHasher()
+            .putBytes(getHash(this.cleanHashes, name))
+            .putBytes(getHash(this.dirtyHashes, name))
+            .putBytes(this.mappingsHash.asBytes())
+            .putLong(this.methodWorkBudget)
+            .putInt(ClassAnalyzer.VERSION)
+            .hash()
+            .toString();
+    }
+
+    private HashCode fingerprintDependencies(List<String> dependencies) {
+        return putDependencies(HASH_FUNCTION.newHasher(), dependencies).hash();
+    }
+
+    private HashCode fingerprintPostAnalysis(PostAnalysis postAnalysis) {
+        Hasher hasher = putDependencies(HASH_FUNCTION.newHasher(), postAnalysis.dependencies());
+        for (String owner : new TreeSet<>(postAnalysis.callOwners())) {
+            SortedMap<String, String> replacements = this.replacementsByOwner.get(owner);
+            if (replacements != null) {
+                replacements.forEach((replacement, original) -> {
+                    putString(hasher, replacement);
+                    putString(hasher, original);
+                });
+            }
+        }
+        return hasher.hash();
+    }
+
+    private Hasher putDependencies(Hasher hasher, List<String> dependencies) {
+        for (String dependency : new TreeSet<>(dependencies)) {
+            String name = dependency + ".class";
+            putString(hasher, dependency);
+            hasher.putBytes(getHash(this.cleanHashes, name)).putBytes(getHash(this.dirtyHashes, name));
+        }
+        return hasher;
+    }
+
+    // Length prefixed, so that consecutive values can't be confused
+    private static void putString(Hasher hasher, String value) {
+        hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] getHash(Map<String, HashCode> hashes, String name) {
+        HashCode hash = hashes.get(name);
+        // Missing classes use a single byte marker, which is distinct from all present hashes
+        return hash != null ? hash.asBytes() : new byte[1];
+    }
+}
@@ -0,0 +1,169 @@
+package dev.su5ed.sinytra.adapter.gradle;
+
+import com.google.common.collect.ForwardingMap;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.JsonOps;
+import dev.su5ed.sinytra.adapter.gradle.analysis.AnalysisBudget;
+import dev.su5ed.sinytra.adapter.gradle.provider.ClassProvider;
+import dev.su5ed.sinytra.adapter.gradle.provider.MappedZipFile;
+import dev.su5ed.sinytra.adapter.gradle.provider.ZipClassProvider;
+import dev.su5ed.sinytra.adapter.patch.PatchInstance;
+import dev.su5ed.sinytra.adapter.patch.analysis.ClassHierarchy;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+// Analysis of a single shard of classes, shared by Gradle worker processes and the standalone CLI.
+// Doesn't depend on the Gradle API, so that it can run without Gradle on the classpath.
+public final class AnalysisShards {
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private AnalysisShards() {}
+
+    // Profiles of the analyzed classes are written next to the shard output, in the same order
+    public static Path profileOutput(Path output) {
+        String name = output.getFileName().toString();
+        return output.resolveSibling(name.substring(0, name.lastIndexOf('.')) + ".profile.json");
+    }
+
+    // Results are listed in entry order. The pool may be shared by multiple shards analyzed at the same time.
+    public static void analyze(Path cleanJarPath, Path dirtyJarPath, Path methodMappings, Path classHierarchy, List<String> entries, AnalysisBudget budget, ForkJoinPool pool, Path output) throws IOException {
+        try (final MappedZipFile cleanJar = new MappedZipFile(cleanJarPath);
+             final MappedZipFile dirtyJar = new MappedZipFile(dirtyJarPath)
+        ) {
+            MethodMappings mappings = MethodMappings.read(methodMappings);
+            ClassHierarchy hierarchy = readClassHierarchy(classHierarchy);
+            // Each analyzer is dropped right after producing its results, so only classes currently being analyzed are held in memory
+            List<Profiled<AnalysisCache.Analysis>> results = runInPool(pool, () -> entries.parallelStream()
+                .map(name -> {
+                    ClassAnalyzer analyzer;
+                    try {
+                        analyzer = ClassAnalyzer.create(readEntry(cleanJar, name), readEntry(dirtyJar, name), mappings, hierarchy, budget);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    ClassAnalysisResult result = analyzer.analyze();
+                    AnalysisCache.Analysis analysis = new AnalysisCache.Analysis(result, analyzer.summarize(), List.copyOf(analyzer.getReferencedClasses()), analyzer.getCutoffs());
+                    return new Profiled<>(analysis, analyzer.getProfile());
+                })
+                .toList());
+            writeProfiled(output, AnalysisCache.Analysis.CODEC, results);
+        }
+    }
+
+    // Results are listed in the order of summaries
+    public static void postAnalyze(Path cleanJarPath, Path dirtyJarPath, Path summariesPath, Path replacementCallsPath, ForkJoinPool pool, Path output) throws IOException {
+        try (final MappedZipFile cleanJar = new MappedZipFile(cleanJarPath);
+             final MappedZipFile dirtyJar = new MappedZipFile(dirtyJarPath)
+        ) {
+            ClassProvider cleanClassProvider = new ZipClassProvider(cleanJar);
+            ClassProvider dirtyClassProvider = new ZipClassProvider(dirtyJar);
+            List<ClassSummary> summaries = readOutput(summariesPath, ClassSummary.CODEC);
+            Map<String, String> replacementCalls = readReplacementCalls(replacementCallsPath);
+            List<Profiled<AnalysisCache.PostAnalysis>> results = runInPool(pool, () -> summaries.parallelStream()
+                .map(summary -> {
+                    ClassProfile.Recorder profiler = ClassProfile.recorder();
+                    PostAnalyzer analyzer = new PostAnalyzer(summary, cleanClassProvider, dirtyClassProvider);
+                    List<PatchInstance> patches = new ArrayList<>();
+                    Set<String> callOwners = new TreeSet<>();
+                    // Track replacement calls looked up by the analyzer
+                    Map<String, String> trackedReplacementCalls = new ForwardingMap<>() {
+                        @Override
+                        protected Map<String, String> delegate() {
+                            return replacementCalls;
+                        }
+
+                        @Override
+                        public String get(Object key) {
+                            callOwners.add(AnalysisCache.getCallOwner((String) key));
+                            return super.get(key);
+                        }
+                    };
+                    profiler.record("postAnalyze", patches, () -> analyzer.postAnalyze(patches, trackedReplacementCalls));
+                    AnalysisCache.PostAnalysis postAnalysis = new AnalysisCache.PostAnalysis(List.copyOf(patches), List.copyOf(analyzer.getReferencedClasses()), List.copyOf(callOwners));
+                    return new Profiled<>(postAnalysis, profiler.build(summary.cleanName()));
+                })
+                .toList());
+            writeProfiled(output, AnalysisCache.PostAnalysis.CODEC, results);
+        }
+    }
+
+    public static Map<String, String> readReplacementCalls(Path path) throws IOException {
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return GSON.fromJson(reader, new TypeToken<Map<String, String>>() {}.getType());
+        }
+    }
+
+    public static void writeReplacementCalls(Path path, Map<String, String> replacementCalls) throws IOException {
+        Files.writeString(path, GSON.toJson(replacementCalls), StandardCharsets.UTF_8);
+    }
+
+    public static ClassHierarchy readClassHierarchy(Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            return ClassHierarchy.read(input);
+        }
+    }
+
+    public static void writeClassHierarchy(Path path, ClassHierarchy hierarchy) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            hierarchy.write(output);
+        }
+    }
+
+    public static <T> List<T> readOutput(Path path, Codec<T> codec) throws IOException {
+        JsonElement json;
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            json = JsonParser.parseReader(reader);
+        }
+        return codec.listOf().decode(JsonOps.INSTANCE, json).getOrThrow(false, s -> {
+            throw new RuntimeException("Error deserializing worker output " + path + ": " + s);
+        }).getFirst();
+    }
+
+    public static <T> void writeOutput(Path path, Codec<T> codec, List<T> values) throws IOException {
+        JsonElement json = codec.listOf().encodeStart(JsonOps.INSTANCE, values).getOrThrow(false, s -> {
+            throw new RuntimeException("Error serializing worker output " + path + ": " + s);
+        });
+        Files.writeString(path, GSON.toJson(json), StandardCharsets.UTF_8);
+    }
+
+    private static <T> void writeProfiled(Path output, Codec<T> codec, List<Profiled<T>> results) throws IOException {
+        writeOutput(output, codec, results.stream().map(Profiled::value).toList());
+        writeOutput(profileOutput(output), ClassProfile.CODEC, results.stream().map(Profiled::profile).toList());
+    }
+
+    private static byte[] readEntry(MappedZipFile zipFile, String name) throws IOException {
+        byte[] data = zipFile.getBytes(name);
+        if (data == null) {
+            throw new IOException("Missing jar entry " + name);
+        }
+        return data;
+    }
+
+    private record Profiled<T>(T value, ClassProfile profile) {}
+
+    private static <T> T runInPool(ForkJoinPool pool, Callable<T> task) {
+        try {
+            return pool.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+}
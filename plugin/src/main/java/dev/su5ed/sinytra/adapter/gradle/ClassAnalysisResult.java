@@ -0,0 +1,66 @@
+package dev.su5ed.sinytra.adapter.gradle;
+
+import com.google.common.collect.LinkedHashMultimap;
+import com.google.common.collect.Multimap;
+import com.google.gson.JsonElement;
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.JsonOps;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import dev.su5ed.sinytra.adapter.patch.LVTOffsets;
+import dev.su5ed.sinytra.adapter.patch.Patch;
+import dev.su5ed.sinytra.adapter.patch.serialization.PatchSerialization;
+import dev.su5ed.sinytra.adapter.patch.util.MethodQualifier;
+
+import java.util.*;
+
+// Analysis output of a single class, collected separately so that classes can be analyzed in parallel
+public record ClassAnalysisResult(List<Patch> patches, Multimap<ChangeCategory, String> info, Map<String, String> replacementCalls,
+                                  Map<String, Map<MethodQualifier, List<LVTOffsets.Offset>>> offsets, Map<String, Map<MethodQualifier, List<LVTOffsets.Swap>>> reorders) {
+    private static final Codec<Multimap<ChangeCategory, String>> INFO_CODEC = Codec.unboundedMap(Codec.STRING.xmap(ChangeCategory::valueOf, ChangeCategory::name), Codec.STRING.listOf())
+        .xmap(map -> {
+            Multimap<ChangeCategory, String> info = LinkedHashMultimap.create();
+            map.forEach(info::putAll);
+            return info;
+        }, info -> {
+            Map<ChangeCategory, List<String>> map = new EnumMap<>(ChangeCategory.class);
+            info.asMap().forEach((category, values) -> map.put(category, List.copyOf(values)));
+            return map;
+        });
+    // Used to pass results between worker processes
+    public static final Codec<ClassAnalysisResult> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+        PatchSerialization.PATCH_INSTANCE_CODEC.listOf().fieldOf("patches").forGetter(ClassAnalysisResult::patches),
+        INFO_CODEC.fieldOf("info").forGetter(ClassAnalysisResult::info),
+        Codec.unboundedMap(Codec.STRING, Codec.STRING).fieldOf("replacementCalls").forGetter(ClassAnalysisResult::replacementCalls),
+        LVTOffsets.CODEC.fieldOf("lvtOffsets").forGetter(result -> new LVTOffsets(result.offsets(), result.reorders()))
+    ).apply(instance, (patches, info, replacementCalls, lvtOffsets) -> new ClassAnalysisResult(patches, info, replacementCalls, lvtOffsets.offsets(), lvtOffsets.reorders())));
+
+    public static ClassAnalysisResult create() {
+        return new ClassAnalysisResult(new ArrayList<>(), LinkedHashMultimap.create(), new LinkedHashMap<>(), new LinkedHashMap<>(), new LinkedHashMap<>());
+    }
+
+    public static ClassAnalysisResult fromJson(JsonElement json) {
+        return CODEC.decode(JsonOps.INSTANCE, json).getOrThrow(false, s -> {
+            throw new RuntimeException("Error deserializing analysis result: " + s);
+        }).getFirst();
+    }
+
+    public JsonElement toJson() {
+        return CODEC.encodeStart(JsonOps.INSTANCE, this).getOrThrow(false, s -> {
+            throw new RuntimeException("Error serializing analysis result: " + s);
+        });
+    }
+
+    public void mergeInto(List<Patch> patches, Multimap<ChangeCategory, String> info, Map<String, String> replacementCalls,
+                          Map<String, Map<MethodQualifier, List<LVTOffsets.Offset>>> offsets, Map<String, Map<MethodQualifier, List<LVTOffsets.Swap>>> reorders
+    ) {
+        patches.addAll(this.patches);
+        info.putAll(this.info);
+        this.replacementCalls.forEach((replacement, original) -> {
+            if (replacementCalls.put(replacement, original) != null) {
+                throw new IllegalStateException("Duplicate replacement for " + original);
+            }
+        });
+        this.offsets.forEach((cls, methods) -> offsets.computeIfAbsent(cls, s -> new LinkedHashMap<>()).putAll(methods));
+        this.reorders.forEach((cls, methods) -> reorders.computeIfAbsent(cls, s -> new LinkedHashMap<>()).putAll(methods));
+    }
+}
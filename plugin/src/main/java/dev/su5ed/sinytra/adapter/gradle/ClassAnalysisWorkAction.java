@@ -0,0 +1,70 @@
+package dev.su5ed.sinytra.adapter.gradle;
+
+import dev.su5ed.sinytra.adapter.gradle.analysis.AnalysisBudget;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.provider.Property;
+import org.gradle.workers.WorkAction;
+import org.gradle.workers.WorkParameters;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+// Analyzes a shard of classes in an isolated worker process, recording what each result depends on for the analysis cache.
+// Post-analysis depends on replacement calls found in all classes, so it runs as a second round of work items once these are merged.
+public abstract class ClassAnalysisWorkAction implements WorkAction<ClassAnalysisWorkAction.Parameters> {
+    public interface Parameters extends WorkParameters {
+        RegularFileProperty getCleanJar();
+
+        RegularFileProperty getDirtyJar();
+
+        // Binary method mappings written by MethodMappings#updateCache
+        RegularFileProperty getMethodMappings();
+
+        // Serialized hierarchy of all classes in both jars
+        RegularFileProperty getClassHierarchy();
+
+        // Jar entries present in both the clean and dirty jar, only used for analysis
+        ListProperty<String> getEntries();
+
+        // Summaries of analyzed classes, only present for post-analysis
+        RegularFileProperty getSummaries();
+
+        Property<Integer> getParallelism();
+
+        // Limits of AnalysisBudget, only used for analysis
+        Property<Long> getClassTimeBudget();
+
+        Property<Long> getMethodWorkBudget();
+
+        // Merged replacement calls of all shards, required for post-analysis
+        RegularFileProperty getReplacementCalls();
+
+        RegularFileProperty getOutput();
+    }
+
+    @Override
+    public void execute() {
+        Parameters parameters = getParameters();
+        Path cleanJar = parameters.getCleanJar().get().getAsFile().toPath();
+        Path dirtyJar = parameters.getDirtyJar().get().getAsFile().toPath();
+        Path output = parameters.getOutput().get().getAsFile().toPath();
+        ForkJoinPool pool = new ForkJoinPool(parameters.getParallelism().get());
+        try {
+            if (parameters.getSummaries().isPresent()) {
+                AnalysisShards.postAnalyze(cleanJar, dirtyJar, parameters.getSummaries().get().getAsFile().toPath(),
+                    parameters.getReplacementCalls().get().getAsFile().toPath(), pool, output);
+            } else {
+                AnalysisShards.analyze(cleanJar, dirtyJar, parameters.getMethodMappings().get().getAsFile().toPath(),
+                    parameters.getClassHierarchy().get().getAsFile().toPath(), parameters.getEntries().get(),
+                    new AnalysisBudget(parameters.getClassTimeBudget().get(), parameters.getMethodWorkBudget().get()), pool, output);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
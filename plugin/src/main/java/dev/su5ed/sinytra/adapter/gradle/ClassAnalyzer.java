@@ -1,14 +1,18 @@
 package dev.su5ed.sinytra.adapter.gradle;
 
-import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Multimap;
 import com.mojang.datafixers.util.Pair;
+import dev.su5ed.sinytra.adapter.gradle.analysis.AnalysisBudget;
+import dev.su5ed.sinytra.adapter.gradle.analysis.InsnComparator;
 import dev.su5ed.sinytra.adapter.gradle.analysis.TraceCallback;
-import dev.su5ed.sinytra.adapter.gradle.provider.ClassProvider;
 import dev.su5ed.sinytra.adapter.patch.LVTOffsets;
 import dev.su5ed.sinytra.adapter.patch.Patch;
 import dev.su5ed.sinytra.adapter.patch.PatchInstance;
+import dev.su5ed.sinytra.adapter.patch.analysis.ClassHierarchy;
 import dev.su5ed.sinytra.adapter.patch.analysis.LocalVarRearrangement;
+import dev.su5ed.sinytra.adapter.patch.analysis.ParameterEditScript;
 import dev.su5ed.sinytra.adapter.patch.analysis.ParametersDiff;
 import dev.su5ed.sinytra.adapter.patch.transformer.ModifyMethodAccess;
 import dev.su5ed.sinytra.adapter.patch.transformer.ModifyMethodParams;
@@ -16,7 +20,10 @@ import dev.su5ed.sinytra.adapter.gradle.analysis.MethodCallAnalyzer;
 import dev.su5ed.sinytra.adapter.patch.util.AdapterUtil;
 import dev.su5ed.sinytra.adapter.patch.util.MethodQualifier;
 import it.unimi.dsi.fastutil.ints.Int2IntMap;
-import net.minecraftforge.srgutils.IMappingFile;
+import it.unimi.dsi.fastutil.ints.IntLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import org.jetbrains.annotations.Nullable;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.Handle;
@@ -37,31 +44,40 @@ public class ClassAnalyzer {
     private static final Collection<Integer> RETURN_OPCODES = Set.of(Opcodes.RETURN, Opcodes.ARETURN, Opcodes.DRETURN, Opcodes.IRETURN, Opcodes.LRETURN, Opcodes.FRETURN);
     private static final String LAMBDA_PREFIX = "lambda$";
     private static final Pattern LAMBDA_PATTERN = Pattern.compile("^lambda\\$(.+)\\$.+$");
+    // Included in analysis cache keys, bump whenever the analysis output changes
+    public static final int VERSION = 3;
 
     private final ClassNode cleanNode;
     private final ClassNode dirtyNode;
-    private final IMappingFile mappings;
-    private final ClassProvider cleanClassProvider;
-    private final ClassProvider dirtyClassProvider;
+    private final MethodMappings mappings;
     private final InheritanceHandler inheritanceHandler;
     private final TraceCallback trace;
+    private final ClassProfile.Recorder profiler;
+    private final AnalysisBudget.Tracker budget;
+    // Classes looked up in the class hierarchy, whose changes may affect the results of this analyzer
+    private final Set<String> referencedClasses = new TreeSet<>();
 
-    // All method of each respective class node
+    // All method of each respective class node, iterating in class file order rather than the identity hash order of method nodes
     private final Multimap<String, MethodNode> cleanMethods;
     private final Multimap<String, MethodNode> dirtyMethods;
     // Methods that exist exclusively in one class and not the other
-    private final Multimap<String, MethodNode> cleanOnlyMethods = HashMultimap.create();
-    private final Multimap<String, MethodNode> dirtyOnlyMethods = HashMultimap.create();
+    private final Multimap<String, MethodNode> cleanOnlyMethods = LinkedHashMultimap.create();
+    private final Multimap<String, MethodNode> dirtyOnlyMethods = LinkedHashMultimap.create();
     // Methods that exist in both classes, uses patched MethodNodes from the dirty class
-    private final Multimap<String, MethodNode> dirtyCommonMethods = HashMultimap.create();
+    private final Multimap<String, MethodNode> dirtyCommonMethods = LinkedHashMultimap.create();
     // Clean class method to their dirty equivalents
-    private final Map<MethodNode, MethodNode> cleanToDirty = new HashMap<>();
+    private final Map<MethodNode, MethodNode> cleanToDirty = new LinkedHashMap<>();
+    // Common methods whose body or local variables differ between both classes
+    private final Map<MethodNode, MethodNode> modifiedCleanToDirty = new LinkedHashMap<>();
 
     private final Map<String, FieldNode> cleanFields;
     private final Map<String, FieldNode> dirtyFields;
 
-    public static ClassAnalyzer create(byte[] cleanData, byte[] dirtyData, IMappingFile mappings, ClassProvider cleanClassProvider, ClassProvider dirtyClassProvider) {
-        return new ClassAnalyzer(readClassNode(cleanData), readClassNode(dirtyData), mappings, cleanClassProvider, dirtyClassProvider);
+    private record ExpansionKey(String name, Type returnType) {}
+
+    public static ClassAnalyzer create(byte[] cleanData, byte[] dirtyData, MethodMappings mappings, ClassHierarchy hierarchy, AnalysisBudget budget) {
+        ClassProfile.Recorder profiler = ClassProfile.recorder();
+        return profiler.record("parse", () -> new ClassAnalyzer(readClassNode(cleanData), readClassNode(dirtyData), mappings, hierarchy, profiler, budget));
     }
 
     private static ClassNode readClassNode(byte[] data) {
@@ -71,52 +87,48 @@ public class ClassAnalyzer {
         return classNode;
     }
 
-    public ClassAnalyzer(ClassNode cleanNode, ClassNode dirtyNode, IMappingFile mappings, ClassProvider cleanClassProvider, ClassProvider dirtyClassProvider) {
+    public ClassAnalyzer(ClassNode cleanNode, ClassNode dirtyNode, MethodMappings mappings, ClassHierarchy hierarchy) {
+        this(cleanNode, dirtyNode, mappings, hierarchy, ClassProfile.recorder(), AnalysisBudget.UNLIMITED);
+    }
+
+    private ClassAnalyzer(ClassNode cleanNode, ClassNode dirtyNode, MethodMappings mappings, ClassHierarchy hierarchy, ClassProfile.Recorder profiler, AnalysisBudget budget) {
         this.cleanNode = cleanNode;
         this.dirtyNode = dirtyNode;
         this.mappings = mappings;
-        this.cleanClassProvider = cleanClassProvider;
-        this.dirtyClassProvider = dirtyClassProvider;
-        ClassProvider joinedClassProvider = name -> dirtyClassProvider.getClass(name).or(() -> cleanClassProvider.getClass(name));
-        this.inheritanceHandler = new InheritanceHandler(joinedClassProvider);
-        this.trace = new TraceCallback(LOGGER, this.cleanNode);
+        this.profiler = profiler;
+        this.budget = budget.track(cleanNode.name);
+        this.inheritanceHandler = new InheritanceHandler(hierarchy, this.referencedClasses::add);
+        this.trace = new TraceCallback(LOGGER, this.cleanNode.name);
 
         this.cleanMethods = indexClassMethods(cleanNode);
         this.dirtyMethods = indexClassMethods(dirtyNode);
-        Collection<MethodNode> allClean = this.cleanMethods.values();
-        Collection<MethodNode> allDirty = this.dirtyMethods.values();
+        // Pair methods with the same name and descriptor through a single lookup each
+        Map<String, MethodNode> cleanBySignature = indexMethodSignatures(cleanNode);
+        Map<String, MethodNode> dirtyBySignature = indexMethodSignatures(dirtyNode);
         this.cleanMethods.forEach((name, method) -> {
-            final String cleanQualifier = method.name + method.desc;
-            if (allDirty.stream().noneMatch(dirtyMethod -> {
-                final String dirtyQualifier = dirtyMethod.name + dirtyMethod.desc;
-                return cleanQualifier.equals(dirtyQualifier);
-            })) {
+            if (!dirtyBySignature.containsKey(method.name + method.desc)) {
                 this.cleanOnlyMethods.put(name, method);
             }
         });
         this.dirtyMethods.forEach((name, method) -> {
-            final String dirtyQualifier = method.name + method.desc;
-            MethodNode cleanMethod = allClean.stream()
-                .filter(clean -> {
-                    final String cleanQualifier = clean.name + clean.desc;
-                    return dirtyQualifier.equals(cleanQualifier);
-                })
-                .findFirst()
-                .orElse(null);
+            MethodNode cleanMethod = cleanBySignature.get(method.name + method.desc);
             if (cleanMethod != null) {
                 this.dirtyCommonMethods.put(name, method);
                 this.cleanToDirty.put(cleanMethod, method);
+                if (!isMethodUnchanged(cleanMethod, method)) {
+                    this.modifiedCleanToDirty.put(cleanMethod, method);
+                }
             } else {
                 this.dirtyOnlyMethods.put(name, method);
             }
         });
-        this.cleanFields = new HashMap<>();
+        this.cleanFields = new LinkedHashMap<>();
         for (FieldNode field : this.cleanNode.fields) {
             if (this.cleanFields.put(field.name, field) != null) {
                 throw new RuntimeException("Found duplicate field " + field.name + " in class " + this.cleanNode.name);
             }
         }
-        this.dirtyFields = new HashMap<>();
+        this.dirtyFields = new LinkedHashMap<>();
         for (FieldNode field : this.dirtyNode.fields) {
             if (this.dirtyFields.put(field.name, field) != null) {
                 throw new RuntimeException("Found duplicate field " + field.name + " in class " + this.dirtyNode.name);
@@ -124,21 +136,80 @@ public class ClassAnalyzer {
         }
     }
 
+    public Set<String> getReferencedClasses() {
+        return this.referencedClasses;
+    }
+
+    // Methods skipped by analysis phases for going over the budget
+    public List<AnalysisBudget.Cutoff> getCutoffs() {
+        return this.budget.getCutoffs();
+    }
+
+    public ClassProfile getProfile() {
+        return this.profiler.build(this.cleanNode.name);
+    }
+
+    // Calls of modified methods, which is all that post-analysis needs after the class trees are released
+    public ClassSummary summarize() {
+        return this.profiler.record("summarize", this::createSummary);
+    }
+
+    private ClassSummary createSummary() {
+        List<String> calls = new ArrayList<>();
+        Object2IntMap<String> callIndexes = new Object2IntOpenHashMap<>();
+        callIndexes.defaultReturnValue(-1);
+        List<ClassSummary.MethodCalls> methods = new ArrayList<>();
+        this.modifiedCleanToDirty.forEach((cleanMethod, dirtyMethod) -> {
+            int[] dirtyCalls = indexCalls(dirtyMethod, calls, callIndexes);
+            int[] cleanCalls = indexCalls(cleanMethod, calls, callIndexes);
+            if (dirtyCalls.length > 0 && cleanCalls.length > 0) {
+                methods.add(new ClassSummary.MethodCalls(dirtyMethod.name + dirtyMethod.desc, dirtyCalls, cleanCalls));
+            }
+        });
+        return new ClassSummary(this.cleanNode.name, this.dirtyNode.name, calls, methods);
+    }
+
+    private static int[] indexCalls(MethodNode method, List<String> calls, Object2IntMap<String> callIndexes) {
+        IntSet indexes = new IntLinkedOpenHashSet();
+        for (AbstractInsnNode insn : method.instructions) {
+            if (insn instanceof MethodInsnNode minsn) {
+                String qualifier = MethodCallAnalyzer.getCallQualifier(minsn);
+                int index = callIndexes.getInt(qualifier);
+                if (index == -1) {
+                    index = calls.size();
+                    calls.add(qualifier);
+                    callIndexes.put(qualifier, index);
+                }
+                indexes.add(index);
+            }
+        }
+        return indexes.toIntArray();
+    }
+
+    public ClassAnalysisResult analyze() {
+        ClassAnalysisResult result = ClassAnalysisResult.create();
+        analyze(result.patches(), result.info(), result.replacementCalls(), result.offsets(), result.reorders());
+        return result;
+    }
+
     public void analyze(List<Patch> patches, Multimap<ChangeCategory, String> info, Map<? super String, String> replacementCalls,
                         Map<String, Map<MethodQualifier, List<LVTOffsets.Offset>>> offsets, Map<String, Map<MethodQualifier, List<LVTOffsets.Swap>>> reorders
     ) {
         // Try to find added dirtyMethod patches
-        findOverloadedMethods(patches, replacementCalls);
+        this.profiler.record("findOverloadedMethods", patches, () -> findOverloadedMethods(patches, replacementCalls));
         if (!isAnonymousClass(this.cleanNode.name)) {
-            findExpandedMethods(patches, replacementCalls);
-            findExpandedLambdas(patches, replacementCalls);
+            this.profiler.record("findExpandedMethods", patches, () -> findExpandedMethods(patches, replacementCalls));
+            this.profiler.record("findExpandedLambdas", patches, () -> findExpandedLambdas(patches, replacementCalls));
         }
-        MethodCallAnalyzer.findReplacedMethodCalls(this.dirtyNode, this.cleanToDirty, patches, this.trace);
-        findUpdatedLambdaNames(patches);
-        checkAccess(patches);
-        calculateLVTOffsets(offsets, reorders);
+        this.profiler.record("findReplacedMethodCalls", patches, () -> MethodCallAnalyzer.findReplacedMethodCalls(this.dirtyNode, this.modifiedCleanToDirty, patches, this.trace, this.budget));
+        this.profiler.record("findUpdatedLambdaNames", patches, () -> findUpdatedLambdaNames(patches));
+        this.profiler.record("checkAccess", patches, () -> checkAccess(patches));
+        this.profiler.record("calculateLVTOffsets", patches, () -> calculateLVTOffsets(offsets, reorders));
         this.trace.space();
+        this.profiler.record("compareFields", patches, () -> compareFields(info));
+    }
 
+    private void compareFields(Multimap<ChangeCategory, String> info) {
         Collection<String> removedFields = new HashSet<>();
         this.cleanFields.forEach((name, field) -> {
             FieldNode dirtyField = this.dirtyFields.get(name);
@@ -157,46 +228,47 @@ public class ClassAnalyzer {
         });
     }
 
-    public void postAnalyze(List<? super PatchInstance> patches, Map<? extends String, String> replacementCalls) {
-        this.trace.reset();
-        updateReplacedInjectionPoints(patches, replacementCalls);
-        this.trace.space();
-    }
-
     private void calculateLVTOffsets(Map<String, Map<MethodQualifier, List<LVTOffsets.Offset>>> offsets, Map<String, Map<MethodQualifier, List<LVTOffsets.Swap>>> reorders) {
-        this.cleanToDirty.forEach((cleanMethod, dirtyMethod) -> {
+        this.modifiedCleanToDirty.forEach((cleanMethod, dirtyMethod) -> {
             if (cleanMethod.localVariables != null && dirtyMethod.localVariables != null) {
-                if (cleanMethod.localVariables.size() == dirtyMethod.localVariables.size()) {
-                    Int2IntMap swaps = LocalVarRearrangement.getRearrangedParametersFromLocals(cleanMethod.localVariables, dirtyMethod.localVariables);
-                    if (swaps != null) {
-                        List<LVTOffsets.Swap> methodReorders = swaps.int2IntEntrySet().stream()
-                            .map(entry -> new LVTOffsets.Swap(entry.getIntKey(), entry.getIntValue()))
-                            .toList();
-                        Map<MethodQualifier, List<LVTOffsets.Swap>> classReorders = reorders.computeIfAbsent(this.dirtyNode.name, s -> new HashMap<>());
-                        MethodQualifier qualifier = new MethodQualifier(dirtyMethod.name, dirtyMethod.desc);
-                        classReorders.put(qualifier, methodReorders);
-                    }
-                } else {
-                    List<ParametersDiff.MethodParameter> cleanTypes = getUniqueLocals(cleanMethod.localVariables);
-                    List<ParametersDiff.MethodParameter> dirtyTypes = getUniqueLocals(dirtyMethod.localVariables);
-                    ParametersDiff diff = ParametersDiff.compareParameters(cleanTypes, dirtyTypes, true);
-                    if (!diff.insertions().isEmpty()) {
-                        List<LVTOffsets.Offset> insertionIndexes = diff.insertions().stream().map(pair -> {
-                            int index = pair.getFirst();
-                            int amount = AdapterUtil.getLVTOffsetForType(pair.getSecond());
-                            return new LVTOffsets.Offset(index, amount);
-                        }).toList();
-                        Map<MethodQualifier, List<LVTOffsets.Offset>> classOffsets = offsets.computeIfAbsent(this.dirtyNode.name, s -> new HashMap<>());
-                        MethodQualifier qualifier = new MethodQualifier(dirtyMethod.name, dirtyMethod.desc);
-                        classOffsets.put(qualifier, insertionIndexes);
-                    }
-                }
+                this.budget.method("calculateLVTOffsets", dirtyMethod, () -> calculateLVTOffsets(cleanMethod, dirtyMethod, offsets, reorders));
             }
         });
     }
 
+    private void calculateLVTOffsets(MethodNode cleanMethod, MethodNode dirtyMethod, Map<String, Map<MethodQualifier, List<LVTOffsets.Offset>>> offsets,
+                                     Map<String, Map<MethodQualifier, List<LVTOffsets.Swap>>> reorders) {
+        // Both the rearrangement check and the edit script compare every pair of locals
+        this.budget.charge((long) cleanMethod.localVariables.size() * dirtyMethod.localVariables.size());
+        if (cleanMethod.localVariables.size() == dirtyMethod.localVariables.size()) {
+            Int2IntMap swaps = LocalVarRearrangement.getRearrangedParametersFromLocals(cleanMethod.localVariables, dirtyMethod.localVariables);
+            if (swaps != null) {
+                List<LVTOffsets.Swap> methodReorders = swaps.int2IntEntrySet().stream()
+                    .map(entry -> new LVTOffsets.Swap(entry.getIntKey(), entry.getIntValue()))
+                    .toList();
+                Map<MethodQualifier, List<LVTOffsets.Swap>> classReorders = reorders.computeIfAbsent(this.dirtyNode.name, s -> new LinkedHashMap<>());
+                MethodQualifier qualifier = new MethodQualifier(dirtyMethod.name, dirtyMethod.desc);
+                classReorders.put(qualifier, methodReorders);
+            }
+        } else {
+            List<ParametersDiff.MethodParameter> cleanTypes = getUniqueLocals(cleanMethod.localVariables);
+            List<ParametersDiff.MethodParameter> dirtyTypes = getUniqueLocals(dirtyMethod.localVariables);
+            ParameterEditScript diff = ParameterEditScript.compute(cleanTypes, dirtyTypes, true);
+            if (diff.insertionCount() > 0) {
+                List<LVTOffsets.Offset> insertionIndexes = new ArrayList<>(diff.insertionCount());
+                for (int i = 0; i < diff.insertionCount(); i++) {
+                    int amount = AdapterUtil.getLVTOffsetForType(diff.insertionType(i));
+                    insertionIndexes.add(new LVTOffsets.Offset(diff.insertionIndex(i), amount));
+                }
+                Map<MethodQualifier, List<LVTOffsets.Offset>> classOffsets = offsets.computeIfAbsent(this.dirtyNode.name, s -> new LinkedHashMap<>());
+                MethodQualifier qualifier = new MethodQualifier(dirtyMethod.name, dirtyMethod.desc);
+                classOffsets.put(qualifier, insertionIndexes);
+            }
+        }
+    }
+
     private List<ParametersDiff.MethodParameter> getUniqueLocals(List<LocalVariableNode> locals) {
-        Map<Integer, ParametersDiff.MethodParameter> map = new HashMap<>();
+        Map<Integer, ParametersDiff.MethodParameter> map = new TreeMap<>();
         for (LocalVariableNode local : locals) {
             map.put(local.index, new ParametersDiff.MethodParameter(local));
         }
@@ -204,24 +276,27 @@ public class ClassAnalyzer {
     }
 
     private void findUpdatedLambdaNames(List<? super PatchInstance> patches) {
-        Multimap<MethodNode, MethodNode> replacements = HashMultimap.create();
+        Multimap<MethodNode, MethodNode> replacements = LinkedHashMultimap.create();
+        // Clean lambdas grouped by the name of their outer method
+        Multimap<String, MethodNode> cleanLambdas = ArrayListMultimap.create();
+        this.cleanMethods.forEach((cleanName, cleanMethod) -> {
+            String cleanLambdaName = getLambdaMethodName(this.cleanNode, cleanMethod);
+            if (cleanLambdaName != null) {
+                cleanLambdas.put(cleanLambdaName, cleanMethod);
+            }
+        });
         this.dirtyOnlyMethods.forEach((name, method) -> {
-            String dirtyMappedName = remapMethodName(this.dirtyNode, method.name, method.desc);
-            Matcher dirtyMatcher = LAMBDA_PATTERN.matcher(dirtyMappedName);
-            if (dirtyMatcher.matches()) {
+            String dirtyLambdaName = getLambdaMethodName(this.dirtyNode, method);
+            if (dirtyLambdaName != null) {
                 // Find lambda in the same outer method, with the same descriptor but different number suffix
-                String dirtyLambdaName = dirtyMatcher.group(1);
-                this.cleanMethods.forEach((cleanName, cleanMethod) -> {
-                    String cleanLambdaName = getLambdaMethodName(this.cleanNode, cleanMethod);
-                    if (dirtyLambdaName.equals(cleanLambdaName)) {
-                        Type dirtyReturn = Type.getReturnType(method.desc);
-                        Type cleanReturn = Type.getReturnType(cleanMethod.desc);
-                        if (dirtyReturn.equals(cleanReturn)) {
-                            Type[] dirtyParams = Type.getArgumentTypes(method.desc);
-                            Type[] cleanParams = Type.getArgumentTypes(cleanMethod.desc);
-                            if (dirtyParams.length == cleanParams.length && checkParameters(cleanParams, dirtyParams, true)) {
-                                replacements.put(cleanMethod, method);
-                            }
+                cleanLambdas.get(dirtyLambdaName).forEach(cleanMethod -> {
+                    Type dirtyReturn = Type.getReturnType(method.desc);
+                    Type cleanReturn = Type.getReturnType(cleanMethod.desc);
+                    if (dirtyReturn.equals(cleanReturn)) {
+                        Type[] dirtyParams = Type.getArgumentTypes(method.desc);
+                        Type[] cleanParams = Type.getArgumentTypes(cleanMethod.desc);
+                        if (dirtyParams.length == cleanParams.length && checkParameters(cleanParams, dirtyParams, true)) {
+                            replacements.put(cleanMethod, method);
                         }
                     }
                 });
@@ -252,47 +327,9 @@ public class ClassAnalyzer {
         return matcher.matches() ? matcher.group(1) : null;
     }
 
-    private void updateReplacedInjectionPoints(List<? super PatchInstance> patches, Map<? extends String, String> replacementCalls) {
-        Collection<String> seen = new HashSet<>();
-        this.cleanToDirty.forEach((cleanMethod, dirtyMethod) -> {
-            for (AbstractInsnNode insn : dirtyMethod.instructions) {
-                if (insn instanceof MethodInsnNode minsn) {
-                    String callQualifier = MethodCallAnalyzer.getCallQualifier(minsn);
-                    String oldQualifier = replacementCalls.get(callQualifier);
-                    if (oldQualifier != null && !seen.contains(oldQualifier)) {
-                        // Check if it was called in the original method insns
-                        for (AbstractInsnNode cInsn : cleanMethod.instructions) {
-                            if (cInsn instanceof MethodInsnNode cminsn && oldQualifier.equals(MethodCallAnalyzer.getCallQualifier(cminsn))) {
-                                this.trace.logHeader();
-                                LOGGER.info("Replacing call in method {}", dirtyMethod.name + dirtyMethod.desc);
-                                LOGGER.info(" << {}", oldQualifier);
-                                LOGGER.info(" >> {}", callQualifier);
-
-                                MethodNode cleanTargetMethod = this.cleanClassProvider.findMethod(cminsn.owner, cminsn.name, cminsn.desc).orElseThrow();
-                                MethodNode dirtyTargetMethod = this.dirtyClassProvider.findMethod(minsn.owner, minsn.name, minsn.desc).orElseThrow();
-                                ParametersDiff diff = ParametersDiff.compareMethodParameters(cleanTargetMethod, dirtyTargetMethod);
-
-                                PatchInstance patch = Patch.builder()
-                                    .targetClass(this.dirtyNode.name)
-                                    .targetMethod(dirtyMethod.name + dirtyMethod.desc)
-                                    .targetInjectionPoint(oldQualifier)
-                                    .modifyInjectionPoint(callQualifier)
-                                    .transform(ModifyMethodParams.create(diff, ModifyMethodParams.TargetType.INJECTION_POINT))
-                                    .build();
-                                patches.add(patch);
-                                seen.add(oldQualifier);
-                                break;
-                            }
-                        }
-                    }
-                }
-            }
-        });
-    }
-
     private void findOverloadedMethods(List<? super PatchInstance> patches, Map<? super String, String> replacementCalls) {
-        this.dirtyOnlyMethods.values().forEach(method -> {
-            MethodNode overloader = findOverloadMethod(this.dirtyNode.name, method, this.dirtyCommonMethods.values());
+        this.dirtyOnlyMethods.values().forEach(method -> this.budget.method("findOverloadedMethods", method, () -> {
+            MethodNode overloader = findOverloadMethod(this.dirtyNode.name, method, this.dirtyCommonMethods.values(), this.budget);
             if (overloader != null) {
                 ParametersDiff diff = ParametersDiff.compareMethodParameters(overloader, method);
                 if (!diff.insertions().isEmpty() || !diff.replacements().isEmpty()) {
@@ -314,7 +351,7 @@ public class ClassAnalyzer {
                     replacementCalls.put(Type.getObjectType(this.dirtyNode.name).getDescriptor() + dirtyQualifier, Type.getObjectType(this.cleanNode.name).getDescriptor() + overloaderQualifier);
                 }
             }
-        });
+        }));
     }
 
     private void checkAccess(List<? super PatchInstance> patches) {
@@ -340,6 +377,14 @@ public class ClassAnalyzer {
 
     private void findExpandedMethods(List<? super PatchInstance> patches, Map<? super String, String> replacementCalls) {
         // Find "expanded" methods where forge replaces a dirtyMethod with one that takes in additional parameters
+        // Candidates must have the same return type, and are assumed to keep the mapped name of the original method
+        Multimap<ExpansionKey, MethodNode> dirtyCandidates = ArrayListMultimap.create();
+        this.dirtyOnlyMethods.forEach((dirtyName, dirtyMethod) -> {
+            // Skip lambdas for now
+            if (!dirtyMethod.name.startsWith(LAMBDA_PREFIX)) {
+                dirtyCandidates.put(new ExpansionKey(dirtyMethod.name, Type.getReturnType(dirtyMethod.desc)), dirtyMethod);
+            }
+        });
         this.cleanOnlyMethods.forEach((name, method) -> {
             // Skip lambdas for now
             String mappedClean = remapMethodName(this.cleanNode, method.name, method.desc);
@@ -347,49 +392,59 @@ public class ClassAnalyzer {
                 return;
             }
 
-            this.dirtyOnlyMethods.forEach((dirtyName, dirtyMethod) -> {
-                // Skip lambdas for now
-                if (!dirtyMethod.name.startsWith(LAMBDA_PREFIX)) {
-                    tryFindExpandedMethod(patches, replacementCalls, method, dirtyMethod);
-                }
-            });
+            for (MethodNode dirtyMethod : dirtyCandidates.get(new ExpansionKey(mappedClean, Type.getReturnType(method.desc)))) {
+                tryFindExpandedMethod(patches, replacementCalls, method, dirtyMethod);
+            }
         });
     }
 
     private void findExpandedLambdas(List<? super PatchInstance> patches, Map<? super String, String> replacementCalls) {
         this.cleanToDirty.forEach((cleanMethod, dirtyMethod) -> {
-            // Find lambdas sorted by their call order. This increases our precision when looking for replaced lambdas that had their suffix number changed.
-            List<String> cleanLambdas = findLambdasInMethod(this.cleanNode, cleanMethod);
-            List<String> dirtyLambdas = findLambdasInMethod(this.dirtyNode, dirtyMethod);
-            for (int cleanIdx = 0, dirtyIdx = 0; cleanIdx < cleanLambdas.size() && dirtyIdx < dirtyLambdas.size(); ) {
-                String cleanLambda = cleanLambdas.get(cleanIdx);
-                String dirtyLambda = dirtyLambdas.get(cleanIdx);
-                if (cleanLambda.equals(dirtyLambda)) {
+            // Lambdas are matched first and only expanded once the whole method was matched within budget
+            List<Pair<String, String>> modifiedLambdas = new ArrayList<>();
+            if (this.budget.method("findExpandedLambdas", dirtyMethod, () -> findModifiedLambdas(cleanMethod, dirtyMethod, modifiedLambdas))) {
+                for (Pair<String, String> pair : modifiedLambdas) {
+                    MethodNode cleanLambdaMethod = findUniqueMethod(this.cleanMethods, pair.getFirst());
+                    MethodNode dirtyLambdaMethod = findUniqueMethod(this.dirtyMethods, pair.getSecond());
+                    tryFindExpandedMethod(patches, replacementCalls, cleanLambdaMethod, dirtyLambdaMethod);
+                }
+            }
+        });
+    }
+
+    private void findModifiedLambdas(MethodNode cleanMethod, MethodNode dirtyMethod, List<Pair<String, String>> modifiedLambdas) {
+        this.budget.charge(cleanMethod.instructions.size() + dirtyMethod.instructions.size());
+        // Find lambdas sorted by their call order. This increases our precision when looking for replaced lambdas that had their suffix number changed.
+        List<String> cleanLambdas = findLambdasInMethod(this.cleanNode, cleanMethod);
+        List<String> dirtyLambdas = findLambdasInMethod(this.dirtyNode, dirtyMethod);
+        for (int cleanIdx = 0, dirtyIdx = 0; cleanIdx < cleanLambdas.size() && dirtyIdx < dirtyLambdas.size(); ) {
+            String cleanLambda = cleanLambdas.get(cleanIdx);
+            String dirtyLambda = dirtyLambdas.get(cleanIdx);
+            if (cleanLambda.equals(dirtyLambda)) {
+                cleanIdx++;
+                dirtyIdx++;
+            } else {
+                // Both lookups below scan the other list
+                this.budget.charge(cleanLambdas.size() + dirtyLambdas.size());
+                boolean noDirty;
+                // Lambda removed in Forge, ignore
+                if (noDirty = !dirtyLambdas.contains(cleanLambda)) {
                     cleanIdx++;
+                }
+                // Lambda added by Forge, ignore
+                if (!cleanLambdas.contains(dirtyLambda)) {
                     dirtyIdx++;
-                } else {
-                    boolean noDirty;
-                    // Lambda removed in Forge, ignore
-                    if (noDirty = !dirtyLambdas.contains(cleanLambda)) {
-                        cleanIdx++;
-                    }
-                    // Lambda added by Forge, ignore
-                    if (!cleanLambdas.contains(dirtyLambda)) {
-                        dirtyIdx++;
-
-                        // Lambda (likely) modified by Forge, proceed
-                        if (noDirty) {
-                            MethodNode cleanLambdaMethod = findUniqueMethod(this.cleanMethods, cleanLambda);
-                            MethodNode dirtyLambdaMethod = findUniqueMethod(this.dirtyMethods, dirtyLambda);
-                            tryFindExpandedMethod(patches, replacementCalls, cleanLambdaMethod, dirtyLambdaMethod);
-                        }
-                    } else {
-                        cleanIdx++;
-                        dirtyIdx++;
+
+                    // Lambda (likely) modified by Forge, proceed
+                    if (noDirty) {
+                        modifiedLambdas.add(Pair.of(cleanLambda, dirtyLambda));
                     }
+                } else {
+                    cleanIdx++;
+                    dirtyIdx++;
                 }
             }
-        });
+        }
     }
 
     private void tryFindExpandedMethod(List<? super PatchInstance> patches, Map<? super String, String> replacementCalls, MethodNode clean, MethodNode dirty) {
@@ -482,19 +537,17 @@ public class ClassAnalyzer {
     }
 
     private String remapMethodName(ClassNode cls, String name, String desc) {
-        return Optional.ofNullable(this.mappings.getClass(cls.name))
-            .map(c -> c.getMethod(name, desc))
-            .map(IMappingFile.INode::getMapped)
-            .orElse(name);
+        return this.mappings.remapMethodName(cls.name, name, desc);
     }
 
     @Nullable
-    private static MethodNode findOverloadMethod(final String owner, final MethodNode method, final Collection<MethodNode> others) {
+    private static MethodNode findOverloadMethod(final String owner, final MethodNode method, final Collection<MethodNode> others, AnalysisBudget.Tracker budget) {
         List<MethodNode> found = new ArrayList<>();
         for (final MethodNode other : others) {
             if (!checkParameters(other, method, true)) {
                 continue;
             }
+            budget.charge(other.instructions.size());
             int labelCount = 0;
             for (final AbstractInsnNode insn : other.instructions) {
                 if (insn instanceof LabelNode) {
@@ -567,10 +620,26 @@ public class ClassAnalyzer {
     }
 
     private static Multimap<String, MethodNode> indexClassMethods(ClassNode classNode) {
-        final Multimap<String, MethodNode> methods = HashMultimap.create();
+        final Multimap<String, MethodNode> methods = LinkedHashMultimap.create();
         for (MethodNode method : classNode.methods) {
             methods.put(method.name, method);
         }
         return methods;
     }
+
+    // Fingerprints rule out most changed methods cheaply, matching ones are confirmed by a full comparison
+    private static boolean isMethodUnchanged(MethodNode clean, MethodNode dirty) {
+        return InsnComparator.methodFingerprint(clean) == InsnComparator.methodFingerprint(dirty)
+            && InsnComparator.localVariablesFingerprint(clean) == InsnComparator.localVariablesFingerprint(dirty)
+            && InsnComparator.methodBodiesEqual(clean, dirty)
+            && InsnComparator.localVariablesEqual(clean, dirty);
+    }
+
+    private static Map<String, MethodNode> indexMethodSignatures(ClassNode classNode) {
+        final Map<String, MethodNode> methods = new HashMap<>(classNode.methods.size() * 2);
+        for (MethodNode method : classNode.methods) {
+            methods.putIfAbsent(method.name + method.desc, method);
+        }
+        return methods;
+    }
 }
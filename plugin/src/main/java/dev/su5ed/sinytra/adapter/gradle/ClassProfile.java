@@ -0,0 +1,90 @@
+package dev.su5ed.sinytra.adapter.gradle;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+// Wall time, allocated bytes and emitted patches of each analysis phase of a single class.
+// Allocations are measured on the current thread, which analyzes a class from start to end, and are -1 if the JVM can't measure them.
+public record ClassProfile(String name, List<Phase> phases) {
+    public record Phase(String name, long timeNanos, long allocatedBytes, int patches) {
+        public static final Codec<Phase> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+            Codec.STRING.fieldOf("name").forGetter(Phase::name),
+            Codec.LONG.fieldOf("timeNanos").forGetter(Phase::timeNanos),
+            Codec.LONG.fieldOf("allocatedBytes").forGetter(Phase::allocatedBytes),
+            Codec.INT.fieldOf("patches").forGetter(Phase::patches)
+        ).apply(instance, Phase::new));
+    }
+
+    public static final Codec<ClassProfile> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+        Codec.STRING.fieldOf("name").forGetter(ClassProfile::name),
+        Phase.CODEC.listOf().fieldOf("phases").forGetter(ClassProfile::phases)
+    ).apply(instance, ClassProfile::new));
+
+    public long timeNanos() {
+        return this.phases.stream().mapToLong(Phase::timeNanos).sum();
+    }
+
+    public long allocatedBytes() {
+        return this.phases.stream().mapToLong(Phase::allocatedBytes).reduce(0, (a, b) -> a == -1 || b == -1 ? -1 : a + b);
+    }
+
+    public int patches() {
+        return this.phases.stream().mapToInt(Phase::patches).sum();
+    }
+
+    public ClassProfile merge(ClassProfile other) {
+        List<Phase> merged = new ArrayList<>(this.phases);
+        merged.addAll(other.phases);
+        return new ClassProfile(this.name, merged);
+    }
+
+    public static Recorder recorder() {
+        return new Recorder();
+    }
+
+    public static class Recorder {
+        private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+        private static final boolean ALLOCATIONS_SUPPORTED = THREADS instanceof com.sun.management.ThreadMXBean threads && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled();
+
+        private final List<Phase> phases = new ArrayList<>();
+
+        private Recorder() {}
+
+        // Measures a phase, counting the patches it adds to the given list
+        public void record(String phase, List<?> patches, Runnable action) {
+            int patchCount = patches.size();
+            record(phase, () -> {
+                action.run();
+                return null;
+            }, () -> patches.size() - patchCount);
+        }
+
+        public <T> T record(String phase, Supplier<T> action) {
+            return record(phase, action, () -> 0);
+        }
+
+        private <T> T record(String phase, Supplier<T> action, IntSupplier patches) {
+            long allocated = allocatedBytes();
+            long start = System.nanoTime();
+            T result = action.get();
+            long time = System.nanoTime() - start;
+            this.phases.add(new Phase(phase, time, allocated == -1 ? -1 : allocatedBytes() - allocated, patches.getAsInt()));
+            return result;
+        }
+
+        public ClassProfile build(String name) {
+            return new ClassProfile(name, List.copyOf(this.phases));
+        }
+
+        private static long allocatedBytes() {
+            return ALLOCATIONS_SUPPORTED ? ((com.sun.management.ThreadMXBean) THREADS).getCurrentThreadAllocatedBytes() : -1;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package dev.su5ed.sinytra.adapter.gradle;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// Compact view of an analyzed class holding only what post-analysis needs, so that class trees can be released after analysis.
+// Call qualifiers are stored once per class and referenced by their index.
+public record ClassSummary(String cleanName, String dirtyName, List<String> calls, List<MethodCalls> methods) {
+    private static final Codec<int[]> INT_ARRAY_CODEC = Codec.INT_STREAM.xmap(IntStream::toArray, Arrays::stream);
+
+    // Distinct calls of a modified method pair, in order of their first appearance
+    public record MethodCalls(String dirtyMethod, int[] dirtyCalls, int[] cleanCalls) {
+        public static final Codec<MethodCalls> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+            Codec.STRING.fieldOf("dirtyMethod").forGetter(MethodCalls::dirtyMethod),
+            INT_ARRAY_CODEC.fieldOf("dirtyCalls").forGetter(MethodCalls::dirtyCalls),
+            INT_ARRAY_CODEC.fieldOf("cleanCalls").forGetter(MethodCalls::cleanCalls)
+        ).apply(instance, MethodCalls::new));
+    }
+
+    public static final Codec<ClassSummary> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+        Codec.STRING.fieldOf("cleanName").forGetter(ClassSummary::cleanName),
+        Codec.STRING.fieldOf("dirtyName").forGetter(ClassSummary::dirtyName),
+        Codec.STRING.listOf().fieldOf("calls").forGetter(ClassSummary::calls),
+        MethodCalls.CODEC.listOf().fieldOf("methods").forGetter(ClassSummary::methods)
+    ).apply(instance, ClassSummary::new));
+}
@@ -1,50 +1,23 @@
 package dev.su5ed.sinytra.adapter.gradle;
 
-import dev.su5ed.sinytra.adapter.gradle.provider.ClassProvider;
-import org.objectweb.asm.tree.ClassNode;
+import dev.su5ed.sinytra.adapter.patch.analysis.ClassHierarchy;
 
-import java.util.*;
+import java.util.function.Consumer;
 
 public class InheritanceHandler {
-    private final ClassProvider classProvider;
-    private final Map<String, Collection<String>> parentCache = new HashMap<>();
+    private final ClassHierarchy hierarchy;
+    // Receives every class whose changes may affect a lookup result
+    private final Consumer<String> referenceTracker;
 
-    public InheritanceHandler(ClassProvider classProvider) {
-        this.classProvider = classProvider;
+    public InheritanceHandler(ClassHierarchy hierarchy, Consumer<String> referenceTracker) {
+        this.hierarchy = hierarchy;
+        this.referenceTracker = referenceTracker;
     }
 
     public boolean isClassInherited(String child, String parent) {
-        ClassNode childNode = this.classProvider.getClass(child).orElse(null);
-        ClassNode parentNode = this.classProvider.getClass(parent).orElse(null);
-        return childNode != null && parentNode != null && getClassParents(child).contains(parent);
-    }
-
-    private Collection<String> getClassParents(String name) {
-        Collection<String> parents = this.parentCache.get(name);
-        if (parents == null) {
-            parents = computeClassParents(name);
-            this.parentCache.put(name, parents);
-        }
-        return parents;
-    }
-
-    private Collection<String> computeClassParents(String name) {
-        ClassNode node = this.classProvider.getClass(name).orElse(null);
-        Set<String> parents = new HashSet<>();
-        if (node != null) {
-            if (node.superName != null) {
-                parents.add(node.superName);
-                if (!node.superName.equals("java/lang/Object")) {
-                    parents.addAll(getClassParents(node.superName));
-                }
-            }
-            if (node.interfaces != null) {
-                parents.addAll(node.interfaces);
-                for (String itf : node.interfaces) {
-                    parents.addAll(getClassParents(itf));
-                }
-            }
-        }
-        return parents;
+        this.referenceTracker.accept(child);
+        this.referenceTracker.accept(parent);
+        this.hierarchy.getSupertypes(child).forEach(this.referenceTracker);
+        return this.hierarchy.isSubtype(child, parent);
     }
 }
@@ -0,0 +1,132 @@
+package dev.su5ed.sinytra.adapter.gradle;
+
+import com.google.common.hash.HashCode;
+import net.minecraftforge.srgutils.IMappingFile;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Flat table of mapped method names, built once from the mapping file and safe for concurrent lookups.
+// Its binary form is keyed by the hash of the mapping file, allowing later runs to skip parsing the mappings.
+public final class MethodMappings {
+    private static final Logger LOGGER = LoggerFactory.getLogger("MethodMappings");
+    private static final int FORMAT_VERSION = 1;
+
+    private record MethodKey(String owner, String name, String desc) {}
+
+    // Only holds methods whose mapped name differs from the original
+    private final Map<MethodKey, String> mappedNames;
+
+    private MethodMappings(Map<MethodKey, String> mappedNames) {
+        this.mappedNames = mappedNames;
+    }
+
+    public static MethodMappings create(IMappingFile mappings) {
+        Map<MethodKey, String> mappedNames = new HashMap<>();
+        for (IMappingFile.IClass cls : mappings.getClasses()) {
+            for (IMappingFile.IMethod method : cls.getMethods()) {
+                if (!method.getOriginal().equals(method.getMapped())) {
+                    mappedNames.put(new MethodKey(cls.getOriginal(), method.getOriginal(), method.getDescriptor()), method.getMapped());
+                }
+            }
+        }
+        return new MethodMappings(mappedNames);
+    }
+
+    // Writes the binary form to the cache file, unless it already holds the same mappings.
+    // Existing files are read completely, so that workers never get a file they can't read.
+    public static void updateCache(Path mappingsFile, HashCode mappingsHash, Path cacheFile) throws IOException {
+        if (Files.exists(cacheFile)) {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+                if (read(input, mappingsHash) != null) {
+                    return;
+                }
+            } catch (IOException e) {
+                LOGGER.warn("Regenerating unreadable method mappings cache {}", cacheFile, e);
+            }
+        }
+        MethodMappings mappings = create(IMappingFile.load(mappingsFile.toFile()));
+        Files.createDirectories(cacheFile.getParent());
+        // Replaced atomically, as runs killed while writing would otherwise leave a truncated file behind
+        Path tempFile = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                mappings.write(output, mappingsHash);
+            }
+            Files.move(tempFile, cacheFile, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    // Reads the binary form written by updateCache
+    public static MethodMappings read(Path cacheFile) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            MethodMappings mappings = read(input, null);
+            if (mappings == null) {
+                throw new IOException("Unsupported method mappings format");
+            }
+            return mappings;
+        }
+    }
+
+    public String remapMethodName(String owner, String name, String desc) {
+        return this.mappedNames.getOrDefault(new MethodKey(owner, name, desc), name);
+    }
+
+    public void write(DataOutput output, HashCode mappingsHash) throws IOException {
+        output.writeInt(FORMAT_VERSION);
+        byte[] hash = mappingsHash.asBytes();
+        output.writeShort(hash.length);
+        output.write(hash);
+        // Methods are grouped by owner, which is written once per group
+        Map<String, Map<MethodKey, String>> byOwner = new HashMap<>();
+        this.mappedNames.forEach((key, mapped) -> byOwner.computeIfAbsent(key.owner(), o -> new HashMap<>()).put(key, mapped));
+        output.writeInt(byOwner.size());
+        for (Map.Entry<String, Map<MethodKey, String>> entry : byOwner.entrySet()) {
+            output.writeUTF(entry.getKey());
+            output.writeInt(entry.getValue().size());
+            for (Map.Entry<MethodKey, String> method : entry.getValue().entrySet()) {
+                output.writeUTF(method.getKey().name());
+                output.writeUTF(method.getKey().desc());
+                output.writeUTF(method.getValue());
+            }
+        }
+    }
+
+    // Whether the data was written in the current format, and for the expected mappings if given
+    private static boolean readHeader(DataInput input, @Nullable HashCode expectedHash) throws IOException {
+        if (input.readInt() != FORMAT_VERSION) {
+            return false;
+        }
+        byte[] hash = new byte[input.readUnsignedShort()];
+        input.readFully(hash);
+        return expectedHash == null || Arrays.equals(hash, expectedHash.asBytes());
+    }
+
+    // Returns null if the data doesn't match the current format or the expected mappings
+    @Nullable
+    private static MethodMappings read(DataInput input, @Nullable HashCode expectedHash) throws IOException {
+        if (!readHeader(input, expectedHash)) {
+            return null;
+        }
+        Map<MethodKey, String> mappedNames = new HashMap<>();
+        int owners = input.readInt();
+        for (int i = 0; i < owners; i++) {
+            String owner = input.readUTF();
+            int methods = input.readInt();
+            for (int j = 0; j < methods; j++) {
+                mappedNames.put(new MethodKey(owner, input.readUTF(), input.readUTF()), input.readUTF());
+            }
+        }
+        return new MethodMappings(mappedNames);
+    }
+}
@@ -0,0 +1,100 @@
+package dev.su5ed.sinytra.adapter.gradle;
+
+import dev.su5ed.sinytra.adapter.gradle.analysis.TraceCallback;
+import dev.su5ed.sinytra.adapter.gradle.provider.ClassProvider;
+import dev.su5ed.sinytra.adapter.patch.Patch;
+import dev.su5ed.sinytra.adapter.patch.PatchInstance;
+import dev.su5ed.sinytra.adapter.patch.analysis.ParametersDiff;
+import dev.su5ed.sinytra.adapter.patch.transformer.ModifyMethodParams;
+import dev.su5ed.sinytra.adapter.patch.util.MethodReference;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.MethodNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+// Runs post-analysis on the summary of a previously analyzed class, once replacement calls of all classes are known
+public class PostAnalyzer {
+    // Continues the output of the class analyzer
+    private static final Logger LOGGER = LoggerFactory.getLogger("ClassAnalyzer");
+
+    private final ClassSummary summary;
+    private final ClassProvider cleanClassProvider;
+    private final ClassProvider dirtyClassProvider;
+    private final TraceCallback trace;
+    // Classes looked up from class providers, whose changes may affect the results of this analyzer
+    private final Set<String> referencedClasses = new TreeSet<>();
+
+    public PostAnalyzer(ClassSummary summary, ClassProvider cleanClassProvider, ClassProvider dirtyClassProvider) {
+        this.summary = summary;
+        this.cleanClassProvider = trackReferences(cleanClassProvider);
+        this.dirtyClassProvider = trackReferences(dirtyClassProvider);
+        this.trace = new TraceCallback(LOGGER, summary.cleanName());
+    }
+
+    private ClassProvider trackReferences(ClassProvider provider) {
+        return name -> {
+            this.referencedClasses.add(name);
+            return provider.getClass(name);
+        };
+    }
+
+    public Set<String> getReferencedClasses() {
+        return this.referencedClasses;
+    }
+
+    public void postAnalyze(List<? super PatchInstance> patches, Map<? extends String, String> replacementCalls) {
+        updateReplacedInjectionPoints(patches, replacementCalls);
+        this.trace.space();
+    }
+
+    private void updateReplacedInjectionPoints(List<? super PatchInstance> patches, Map<? extends String, String> replacementCalls) {
+        List<String> calls = this.summary.calls();
+        Collection<String> seen = new HashSet<>();
+        for (ClassSummary.MethodCalls method : this.summary.methods()) {
+            for (int dirtyCall : method.dirtyCalls()) {
+                String callQualifier = calls.get(dirtyCall);
+                String oldQualifier = replacementCalls.get(callQualifier);
+                // Check if it was called in the original method insns
+                if (oldQualifier != null && !seen.contains(oldQualifier) && containsCall(method.cleanCalls(), oldQualifier)) {
+                    this.trace.logHeader();
+                    LOGGER.info("Replacing call in method {}", method.dirtyMethod());
+                    LOGGER.info(" << {}", oldQualifier);
+                    LOGGER.info(" >> {}", callQualifier);
+
+                    MethodNode cleanTargetMethod = findMethod(this.cleanClassProvider, oldQualifier);
+                    MethodNode dirtyTargetMethod = findMethod(this.dirtyClassProvider, callQualifier);
+                    ParametersDiff diff = ParametersDiff.compareMethodParameters(cleanTargetMethod, dirtyTargetMethod);
+
+                    PatchInstance patch = Patch.builder()
+                        .targetClass(this.summary.dirtyName())
+                        .targetMethod(method.dirtyMethod())
+                        .targetInjectionPoint(oldQualifier)
+                        .modifyInjectionPoint(callQualifier)
+                        .transform(ModifyMethodParams.create(diff, ModifyMethodParams.TargetType.INJECTION_POINT))
+                        .build();
+                    patches.add(patch);
+                    seen.add(oldQualifier);
+                }
+            }
+        }
+    }
+
+    private boolean containsCall(int[] methodCalls, String qualifier) {
+        for (int call : methodCalls) {
+            if (this.summary.calls().get(call).equals(qualifier)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static MethodNode findMethod(ClassProvider provider, String callQualifier) {
+        MethodReference reference = MethodReference.parse(callQualifier);
+        if (reference == null || !reference.isQualified()) {
+            throw new IllegalStateException("Invalid call qualifier " + callQualifier);
+        }
+        return provider.findMethod(Type.getType(reference.owner()).getInternalName(), reference.name(), reference.desc()).orElseThrow();
+    }
+}
@@ -0,0 +1,101 @@
+package dev.su5ed.sinytra.adapter.gradle.analysis;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Limits the wall time spent on a single class and the work spent on a single method, counted in instructions compared.
+// Methods that go over either limit are skipped as a whole by the phase analyzing them, so that partial results never leak into the output.
+// A limit of 0 disables it.
+public record AnalysisBudget(long classTimeMillis, long methodWork) {
+    public static final AnalysisBudget UNLIMITED = new AnalysisBudget(0, 0);
+
+    public enum Reason {
+        TIME,
+        WORK
+    }
+
+    // Methods of a class skipped by an analysis phase for the same reason
+    public record Cutoff(String className, String phase, Reason reason, List<String> methods) {
+        public static final Codec<Cutoff> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+            Codec.STRING.fieldOf("className").forGetter(Cutoff::className),
+            Codec.STRING.fieldOf("phase").forGetter(Cutoff::phase),
+            Codec.STRING.xmap(Reason::valueOf, Reason::name).fieldOf("reason").forGetter(Cutoff::reason),
+            Codec.STRING.listOf().fieldOf("methods").forGetter(Cutoff::methods)
+        ).apply(instance, Cutoff::new));
+    }
+
+    // Starts the clock for analyzing a class
+    public Tracker track(String className) {
+        return new Tracker(className, this.classTimeMillis > 0 ? System.nanoTime() + this.classTimeMillis * 1_000_000 : 0, this.methodWork);
+    }
+
+    public static class Tracker {
+        private final String className;
+        private final long deadline;
+        private final long methodWorkLimit;
+        private final Map<String, Cutoff> cutoffs = new LinkedHashMap<>();
+        private long methodWork;
+        private boolean expired;
+
+        private Tracker(String className, long deadline, long methodWorkLimit) {
+            this.className = className;
+            this.deadline = deadline;
+            this.methodWorkLimit = methodWorkLimit;
+        }
+
+        // Runs the analysis of a single method, returning false if it was cut off
+        public boolean method(String phase, MethodNode method, Runnable action) {
+            if (this.expired) {
+                cutOff(phase, method, Reason.TIME);
+                return false;
+            }
+            this.methodWork = 0;
+            try {
+                action.run();
+                return true;
+            } catch (BudgetExceededException e) {
+                cutOff(phase, method, e.reason);
+                return false;
+            }
+        }
+
+        // Counts work done for the current method, aborting it once over budget
+        public void charge(long work) {
+            this.methodWork += work;
+            if (this.methodWorkLimit > 0 && this.methodWork > this.methodWorkLimit) {
+                throw new BudgetExceededException(Reason.WORK);
+            }
+            if (this.deadline != 0 && System.nanoTime() > this.deadline) {
+                this.expired = true;
+                throw new BudgetExceededException(Reason.TIME);
+            }
+        }
+
+        public List<Cutoff> getCutoffs() {
+            return this.cutoffs.values().stream()
+                .map(cutoff -> new Cutoff(cutoff.className(), cutoff.phase(), cutoff.reason(), List.copyOf(cutoff.methods())))
+                .toList();
+        }
+
+        private void cutOff(String phase, MethodNode method, Reason reason) {
+            Cutoff cutoff = this.cutoffs.computeIfAbsent(phase + " " + reason, k -> new Cutoff(this.className, phase, reason, new ArrayList<>()));
+            cutoff.methods().add(method.name + method.desc);
+        }
+    }
+
+    private static class BudgetExceededException extends RuntimeException {
+        private final Reason reason;
+
+        public BudgetExceededException(Reason reason) {
+            // Thrown for control flow only, no stack trace is needed
+            super(reason.name(), null, false, false);
+            this.reason = reason;
+        }
+    }
+}
@@ -25,6 +25,12 @@
  */
 package dev.su5ed.sinytra.adapter.gradle.analysis;
 
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import org.jetbrains.annotations.Nullable;
+import org.objectweb.asm.ConstantDynamic;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Type;
 import org.objectweb.asm.tree.*;
 
 import java.util.Arrays;
@@ -33,6 +39,10 @@ import java.util.Objects;
 
 // Source: https://git.sleeping.town/Nil/NilLoader/src/commit/d66d783a5f7ac72a3688594335b3285fcb975b07/src/main/java/nilloader/api/lib/mini/PatchContext.java
 public class InsnComparator {
+    private static final long MIX_MULTIPLIER = 0x9E3779B97F4A7C15L;
+    // Polynomial base of window hashes
+    private static final long WINDOW_BASE = 0x100000001B3L;
+    private static final long STRING_SEED = 0xCBF29CE484222325L;
 
     public static boolean instructionsEqual(AbstractInsnNode a, AbstractInsnNode b) {
         if (a == b) return true;
@@ -119,4 +129,289 @@ public class InsnComparator {
         }
         return true;
     }
+
+    // Canonical hash of an instruction's opcode and operands, consistent with instructionsEqual.
+    // Labels, frames, line numbers and jump targets have no comparable identity and only contribute their type and opcode.
+    public static long fingerprint(AbstractInsnNode insn) {
+        long hash = mix(insn.getType(), insn.getOpcode());
+        if (insn instanceof FieldInsnNode f) {
+            hash = mix(mix(mix(hash, hashString(f.owner)), hashString(f.name)), hashString(f.desc));
+        } else if (insn instanceof IincInsnNode i) {
+            hash = mix(mix(hash, i.var), i.incr);
+        } else if (insn instanceof IntInsnNode i) {
+            hash = mix(hash, i.operand);
+        } else if (insn instanceof InvokeDynamicInsnNode i) {
+            hash = mix(mix(mix(mix(hash, hashValue(i.bsm)), hashValues(i.bsmArgs)), hashString(i.name)), hashString(i.desc));
+        } else if (insn instanceof LdcInsnNode l) {
+            hash = mix(hash, hashValue(l.cst));
+        } else if (insn instanceof LookupSwitchInsnNode l) {
+            hash = mix(mix(hash, hashValues(l.keys.toArray())), l.labels.size());
+        } else if (insn instanceof MethodInsnNode m) {
+            hash = mix(mix(mix(mix(hash, hashString(m.owner)), hashString(m.name)), hashString(m.desc)), m.itf ? 1 : 0);
+        } else if (insn instanceof MultiANewArrayInsnNode m) {
+            hash = mix(mix(hash, hashString(m.desc)), m.dims);
+        } else if (insn instanceof TableSwitchInsnNode t) {
+            hash = mix(mix(mix(hash, t.min), t.max), t.labels.size());
+        } else if (insn instanceof TypeInsnNode t) {
+            hash = mix(hash, hashString(t.desc));
+        } else if (insn instanceof VarInsnNode v) {
+            hash = mix(hash, v.var);
+        }
+        return finish(hash);
+    }
+
+    // Equal instruction lists always have the same fingerprint, so lists only need to be compared fully when their fingerprints match
+    public static long windowFingerprint(List<? extends AbstractInsnNode> insns) {
+        long hash = 0;
+        for (AbstractInsnNode insn : insns) {
+            hash = hash * WINDOW_BASE + fingerprint(insn);
+        }
+        return hash * WINDOW_BASE + insns.size();
+    }
+
+    // Window fingerprints of up to size instructions starting at each index, shortened at the end of the list.
+    // Computed with a rolling hash in linear time, each value equals the windowFingerprint of the same instructions.
+    public static long[] windowFingerprints(List<? extends AbstractInsnNode> insns, int size) {
+        int count = insns.size();
+        long[] insnHashes = new long[count];
+        for (int i = 0; i < count; i++) {
+            insnHashes[i] = fingerprint(insns.get(i));
+        }
+        long[] windows = new long[count];
+        // Windows that are cut off by the end of the list
+        int partialStart = Math.max(0, count - size + 1);
+        long suffix = 0;
+        long power = 1;
+        for (int i = count - 1; i >= partialStart; i--) {
+            suffix += insnHashes[i] * power;
+            power *= WINDOW_BASE;
+            windows[i] = suffix * WINDOW_BASE + (count - i);
+        }
+        if (count >= size && size > 0) {
+            // Weight of the first instruction in a full window
+            long leading = 1;
+            long hash = 0;
+            for (int i = 0; i < size; i++) {
+                hash = hash * WINDOW_BASE + insnHashes[i];
+                if (i > 0) {
+                    leading *= WINDOW_BASE;
+                }
+            }
+            windows[0] = hash * WINDOW_BASE + size;
+            for (int i = 1; i + size <= count; i++) {
+                hash = (hash - insnHashes[i - 1] * leading) * WINDOW_BASE + insnHashes[i + size - 1];
+                windows[i] = hash * WINDOW_BASE + size;
+            }
+        }
+        return windows;
+    }
+
+    // Content hash of a method body, ignoring frames and line numbers.
+    // Labels are numbered in order of appearance, so that unlike instructionsEqual, jump targets and try-catch ranges are taken into account.
+    public static long methodFingerprint(MethodNode method) {
+        Object2IntMap<LabelNode> labels = indexLabels(method);
+        long hash = 0;
+        for (AbstractInsnNode insn : method.instructions) {
+            if (insn instanceof FrameNode || insn instanceof LineNumberNode) {
+                continue;
+            }
+            long insnHash = fingerprint(insn);
+            if (insn instanceof JumpInsnNode jump) {
+                insnHash = mix(insnHash, labels.getInt(jump.label));
+            } else if (insn instanceof LookupSwitchInsnNode l) {
+                insnHash = mixLabels(mix(insnHash, labels.getInt(l.dflt)), l.labels, labels);
+            } else if (insn instanceof TableSwitchInsnNode t) {
+                insnHash = mixLabels(mix(insnHash, labels.getInt(t.dflt)), t.labels, labels);
+            }
+            hash = hash * WINDOW_BASE + insnHash;
+        }
+        if (method.tryCatchBlocks != null) {
+            for (TryCatchBlockNode block : method.tryCatchBlocks) {
+                long blockHash = mix(mix(mix(labels.getInt(block.start), labels.getInt(block.end)), labels.getInt(block.handler)), hashString(block.type));
+                hash = hash * WINDOW_BASE + finish(blockHash);
+            }
+        }
+        return finish(hash);
+    }
+
+    // Full comparison of method bodies matching methodFingerprint, used to confirm equal fingerprints
+    public static boolean methodBodiesEqual(MethodNode a, MethodNode b) {
+        Object2IntMap<LabelNode> labelsA = indexLabels(a);
+        Object2IntMap<LabelNode> labelsB = indexLabels(b);
+        AbstractInsnNode insnA = skipDebugInsns(a.instructions.getFirst());
+        AbstractInsnNode insnB = skipDebugInsns(b.instructions.getFirst());
+        while (insnA != null && insnB != null) {
+            if (!instructionsEqual(insnA, insnB)) {
+                return false;
+            }
+            if (insnA instanceof JumpInsnNode jumpA) {
+                if (labelsA.getInt(jumpA.label) != labelsB.getInt(((JumpInsnNode) insnB).label)) {
+                    return false;
+                }
+            } else if (insnA instanceof LookupSwitchInsnNode switchA) {
+                LookupSwitchInsnNode switchB = (LookupSwitchInsnNode) insnB;
+                if (!labelsEqual(switchA.dflt, switchB.dflt, labelsA, labelsB) || !labelsEqual(switchA.labels, switchB.labels, labelsA, labelsB)) {
+                    return false;
+                }
+            } else if (insnA instanceof TableSwitchInsnNode switchA) {
+                TableSwitchInsnNode switchB = (TableSwitchInsnNode) insnB;
+                if (!labelsEqual(switchA.dflt, switchB.dflt, labelsA, labelsB) || !labelsEqual(switchA.labels, switchB.labels, labelsA, labelsB)) {
+                    return false;
+                }
+            }
+            insnA = skipDebugInsns(insnA.getNext());
+            insnB = skipDebugInsns(insnB.getNext());
+        }
+        if (insnA != insnB) {
+            return false;
+        }
+        List<TryCatchBlockNode> blocksA = a.tryCatchBlocks != null ? a.tryCatchBlocks : List.of();
+        List<TryCatchBlockNode> blocksB = b.tryCatchBlocks != null ? b.tryCatchBlocks : List.of();
+        if (blocksA.size() != blocksB.size()) {
+            return false;
+        }
+        for (int i = 0; i < blocksA.size(); i++) {
+            TryCatchBlockNode blockA = blocksA.get(i);
+            TryCatchBlockNode blockB = blocksB.get(i);
+            if (!labelsEqual(blockA.start, blockB.start, labelsA, labelsB) || !labelsEqual(blockA.end, blockB.end, labelsA, labelsB)
+                || !labelsEqual(blockA.handler, blockB.handler, labelsA, labelsB) || !Objects.equals(blockA.type, blockB.type)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Full comparison of local variable tables matching localVariablesFingerprint
+    public static boolean localVariablesEqual(MethodNode a, MethodNode b) {
+        List<LocalVariableNode> localsA = a.localVariables != null ? a.localVariables : List.of();
+        List<LocalVariableNode> localsB = b.localVariables != null ? b.localVariables : List.of();
+        if (localsA.size() != localsB.size()) {
+            return false;
+        }
+        for (int i = 0; i < localsA.size(); i++) {
+            LocalVariableNode localA = localsA.get(i);
+            LocalVariableNode localB = localsB.get(i);
+            if (localA.index != localB.index || !Objects.equals(localA.name, localB.name) || !Objects.equals(localA.desc, localB.desc)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Hash of a method's local variable table, covering the properties used by LVT offset analysis
+    public static long localVariablesFingerprint(MethodNode method) {
+        long hash = 0;
+        if (method.localVariables != null) {
+            for (LocalVariableNode local : method.localVariables) {
+                hash = hash * WINDOW_BASE + finish(mix(mix(hashString(local.name), hashString(local.desc)), local.index));
+            }
+            hash = hash * WINDOW_BASE + method.localVariables.size();
+        }
+        return finish(hash);
+    }
+
+    // 64-bit hash over the length and every char, as String#hashCode collides for strings such as "Aa" and "BB"
+    private static long hashString(@Nullable String str) {
+        if (str == null) {
+            return 0;
+        }
+        long hash = mix(STRING_SEED, str.length());
+        for (int i = 0; i < str.length(); i++) {
+            hash = (hash ^ str.charAt(i)) * WINDOW_BASE;
+        }
+        return hash;
+    }
+
+    // Hashes constants and bootstrap arguments, with strings and descriptors they contain hashed by hashString
+    private static long hashValue(@Nullable Object value) {
+        if (value instanceof String str) {
+            return hashString(str);
+        } else if (value instanceof Type type) {
+            return mix(type.getSort(), hashString(type.getDescriptor()));
+        } else if (value instanceof Handle handle) {
+            return mix(mix(mix(mix(handle.getTag(), hashString(handle.getOwner())), hashString(handle.getName())), hashString(handle.getDesc())), handle.isInterface() ? 1 : 0);
+        } else if (value instanceof ConstantDynamic condy) {
+            long hash = mix(mix(mix(hashString(condy.getName()), hashString(condy.getDescriptor())), hashValue(condy.getBootstrapMethod())), condy.getBootstrapMethodArgumentCount());
+            for (int i = 0; i < condy.getBootstrapMethodArgumentCount(); i++) {
+                hash = mix(hash, hashValue(condy.getBootstrapMethodArgument(i)));
+            }
+            return hash;
+        } else if (value instanceof Integer i) {
+            return mix(Type.INT, i);
+        } else if (value instanceof Float f) {
+            return mix(Type.FLOAT, Float.floatToIntBits(f));
+        } else if (value instanceof Long l) {
+            return mix(Type.LONG, l);
+        } else if (value instanceof Double d) {
+            return mix(Type.DOUBLE, Double.doubleToLongBits(d));
+        }
+        // Remaining values are null or small boxed primitives, whose hash code is their value
+        return Objects.hashCode(value);
+    }
+
+    private static long hashValues(@Nullable Object[] values) {
+        if (values == null) {
+            return 0;
+        }
+        long hash = values.length;
+        for (Object value : values) {
+            hash = mix(hash, hashValue(value));
+        }
+        return hash;
+    }
+
+    private static Object2IntMap<LabelNode> indexLabels(MethodNode method) {
+        Object2IntMap<LabelNode> labels = new Object2IntOpenHashMap<>();
+        for (AbstractInsnNode insn : method.instructions) {
+            if (insn instanceof LabelNode label) {
+                labels.put(label, labels.size());
+            }
+        }
+        return labels;
+    }
+
+    @Nullable
+    private static AbstractInsnNode skipDebugInsns(@Nullable AbstractInsnNode insn) {
+        while (insn instanceof FrameNode || insn instanceof LineNumberNode) {
+            insn = insn.getNext();
+        }
+        return insn;
+    }
+
+    private static boolean labelsEqual(LabelNode a, LabelNode b, Object2IntMap<LabelNode> labelsA, Object2IntMap<LabelNode> labelsB) {
+        return labelsA.getInt(a) == labelsB.getInt(b);
+    }
+
+    private static boolean labelsEqual(List<LabelNode> a, List<LabelNode> b, Object2IntMap<LabelNode> labelsA, Object2IntMap<LabelNode> labelsB) {
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (!labelsEqual(a.get(i), b.get(i), labelsA, labelsB)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long mixLabels(long hash, List<LabelNode> targets, Object2IntMap<LabelNode> labels) {
+        for (LabelNode target : targets) {
+            hash = mix(hash, labels.getInt(target));
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        return Long.rotateLeft((hash ^ value) * MIX_MULTIPLIER, 29);
+    }
+
+    // Final avalanche step of MurmurHash3
+    private static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
 }
@@ -1,8 +1,14 @@
 package dev.su5ed.sinytra.adapter.gradle.analysis;
 
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import dev.su5ed.sinytra.adapter.patch.Patch;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.TestOnly;
 import org.objectweb.asm.Type;
@@ -11,6 +17,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
 import java.util.stream.Stream;
 
@@ -20,83 +27,104 @@ public class MethodCallAnalyzer {
 
     private static final Logger LOGGER = LoggerFactory.getLogger("MethodCallAnalyzer");
 
-    public static void findReplacedMethodCalls(ClassNode dirtyNode, Map<MethodNode, MethodNode> cleanToDirty, List<Patch> patches, TraceCallback trace) {
+    public static void findReplacedMethodCalls(ClassNode dirtyNode, Map<MethodNode, MethodNode> cleanToDirty, List<Patch> patches, TraceCallback trace, AnalysisBudget.Tracker budget) {
         cleanToDirty.forEach((cleanMethod, dirtyMethod) -> {
-            int callAnalysisLimit = 2;
-            int insnRange = 5;
-            List<String> cleanCallOrder = new ArrayList<>();
-            List<String> dirtyCallOrder = new ArrayList<>();
-            Multimap<String, MethodInsnNode> cleanCalls = getMethodCalls(cleanMethod, cleanCallOrder);
-            Multimap<String, MethodInsnNode> dirtyCalls = getMethodCalls(dirtyMethod, dirtyCallOrder);
-
-            dirtyCalls.asMap().forEach((qualifier, dirtyList) -> {
-                Collection<MethodInsnNode> cleanList = cleanCalls.get(qualifier);
-                if (cleanList.size() != dirtyList.size() && cleanList.size() <= callAnalysisLimit) {
-                    List<InstructionMatcher> cleanMatchers = cleanList.stream().map(i -> findSurroundingInstructions(i, insnRange)).toList();
-                    List<InstructionMatcher> dirtyMatchers = dirtyList.stream().map(i -> findSurroundingInstructions(i, insnRange)).toList();
-
-                    List<InstructionMatcher> missing = identifyMissingCalls(cleanMatchers, dirtyMatchers);
-
-                    for (InstructionMatcher matcher : missing) {
-                        String original = getCallQualifier(matcher.insn());
-                        String replacement = matcher.findReplacement(cleanCallOrder, dirtyCallOrder);
-                        if (replacement != null && !replacement.equals(original)) {
-                            trace.logHeader();
-                            LOGGER.info("Replacing method call in {} to {}.{} with {}", dirtyMethod.name, matcher.insn().owner, matcher.insn().name, replacement);
-                            Patch patch = Patch.builder()
-                                .targetClass(dirtyNode.name)
-                                .targetMethod(dirtyMethod.name + dirtyMethod.desc)
-                                .targetInjectionPoint(original)
-                                .modifyInjectionPoint(replacement)
-                                .targetMixinType(Patch.INJECT)
-                                .build();
-                            patches.add(patch);
-                        }
+            // Patches are only added once the whole method has been analyzed within budget
+            List<Patch> methodPatches = new ArrayList<>();
+            if (budget.method("findReplacedMethodCalls", dirtyMethod, () -> findReplacedMethodCalls(dirtyNode, cleanMethod, dirtyMethod, methodPatches, trace, budget))) {
+                patches.addAll(methodPatches);
+            }
+        });
+    }
+
+    private static void findReplacedMethodCalls(ClassNode dirtyNode, MethodNode cleanMethod, MethodNode dirtyMethod, List<Patch> patches, TraceCallback trace, AnalysisBudget.Tracker budget) {
+        int callAnalysisLimit = 2;
+        int insnRange = 5;
+        budget.charge(cleanMethod.instructions.size() + dirtyMethod.instructions.size());
+        Multimap<String, MethodInsnNode> cleanCalls = getMethodCalls(cleanMethod);
+        Multimap<String, MethodInsnNode> dirtyCalls = getMethodCalls(dirtyMethod);
+        CallIndex cleanCallOrder = CallIndex.create(cleanMethod);
+        CallIndex dirtyCallOrder = CallIndex.create(dirtyMethod);
+        Supplier<InstructionWindows> cleanWindows = Suppliers.memoize(() -> {
+            budget.charge((long) cleanMethod.instructions.size() * insnRange);
+            return new InstructionWindows(cleanMethod, insnRange);
+        });
+        Supplier<InstructionWindows> dirtyWindows = Suppliers.memoize(() -> {
+            budget.charge((long) dirtyMethod.instructions.size() * insnRange);
+            return new InstructionWindows(dirtyMethod, insnRange);
+        });
+
+        dirtyCalls.asMap().forEach((qualifier, dirtyList) -> {
+            Collection<MethodInsnNode> cleanList = cleanCalls.get(qualifier);
+            if (cleanList.size() != dirtyList.size() && cleanList.size() <= callAnalysisLimit) {
+                List<InstructionMatcher> cleanMatchers = cleanList.stream().map(i -> findSurroundingInstructions(i, insnRange, cleanWindows.get(), budget)).toList();
+                List<InstructionMatcher> dirtyMatchers = dirtyList.stream().map(i -> findSurroundingInstructions(i, insnRange, dirtyWindows.get(), budget)).toList();
+
+                List<InstructionMatcher> missing = identifyMissingCalls(cleanMatchers, dirtyMatchers, budget);
+
+                for (InstructionMatcher matcher : missing) {
+                    String original = getCallQualifier(matcher.insn());
+                    String replacement = matcher.findReplacement(cleanCallOrder, dirtyCallOrder);
+                    if (replacement != null && !replacement.equals(original)) {
+                        trace.logHeader();
+                        LOGGER.info("Replacing method call in {} to {}.{} with {}", dirtyMethod.name, matcher.insn().owner, matcher.insn().name, replacement);
+                        Patch patch = Patch.builder()
+                            .targetClass(dirtyNode.name)
+                            .targetMethod(dirtyMethod.name + dirtyMethod.desc)
+                            .targetInjectionPoint(original)
+                            .modifyInjectionPoint(replacement)
+                            .targetMixinType(Patch.INJECT)
+                            .build();
+                        patches.add(patch);
                     }
                 }
-            });
+            }
         });
     }
 
-    private static List<InstructionMatcher> identifyMissingCalls(List<InstructionMatcher> cleanCalls, List<InstructionMatcher> dirtyCalls) {
-        List<InstructionMatcher> activeCleanCalls = new ArrayList<>(cleanCalls);
-        List<InstructionMatcher> activeDirtyCalls = new ArrayList<>(dirtyCalls);
+    private static List<InstructionMatcher> identifyMissingCalls(List<InstructionMatcher> cleanCalls, List<InstructionMatcher> dirtyCalls, AnalysisBudget.Tracker budget) {
+        List<InstructionMatcher> missing = new ArrayList<>();
+        // Matching windows always have the same hash, so only dirty calls in the same bucket are compared
+        Map<Long, List<InstructionMatcher>> activeDirtyCalls = new HashMap<>();
+        for (InstructionMatcher dirtyMatcher : dirtyCalls) {
+            activeDirtyCalls.computeIfAbsent(dirtyMatcher.windowHash(), h -> new LinkedList<>()).add(dirtyMatcher);
+        }
 
         outer:
-        for (Iterator<InstructionMatcher> iterator = activeCleanCalls.iterator(); iterator.hasNext(); ) {
-            InstructionMatcher cleanMatcher = iterator.next();
-            for (InstructionMatcher dirtyMatcher : activeDirtyCalls) {
-                if (cleanMatcher.test(dirtyMatcher)) {
+        for (InstructionMatcher cleanMatcher : cleanCalls) {
+            List<InstructionMatcher> candidates = activeDirtyCalls.getOrDefault(cleanMatcher.windowHash(), List.of());
+            for (Iterator<InstructionMatcher> iterator = candidates.iterator(); iterator.hasNext(); ) {
+                budget.charge(cleanMatcher.before().size() + cleanMatcher.after().size());
+                if (cleanMatcher.test(iterator.next())) {
                     iterator.remove();
-                    activeDirtyCalls.remove(dirtyMatcher);
                     continue outer;
                 }
             }
+            missing.add(cleanMatcher);
         }
 
-        return activeCleanCalls;
+        return missing;
     }
 
-    private static Multimap<String, MethodInsnNode> getMethodCalls(MethodNode node, List<String> callOrder) {
+    private static Multimap<String, MethodInsnNode> getMethodCalls(MethodNode node) {
         ImmutableMultimap.Builder<String, MethodInsnNode> calls = ImmutableMultimap.builder();
         for (AbstractInsnNode insn : node.instructions) {
             if (insn instanceof MethodInsnNode minsn) {
-                String qualifier = getCallQualifier(minsn);
-                calls.put(qualifier, minsn);
-                callOrder.add(qualifier);
+                calls.put(getCallQualifier(minsn), minsn);
             }
         }
         return calls.build();
     }
 
-    private static InstructionMatcher findSurroundingInstructions(MethodInsnNode insn, int range) {
-        LabelNode previousLabel = findFirstInsn(insn, LabelNode.class, BACKWARDS);
-        LabelNode nextLabel = findFirstInsn(insn, LabelNode.class, FORWARD);
+    private static InstructionMatcher findSurroundingInstructions(MethodInsnNode insn, int range, InstructionWindows windows, AnalysisBudget.Tracker budget) {
+        LabelNode previousLabel = findLabel(insn, BACKWARDS, budget);
+        LabelNode nextLabel = findLabel(insn, FORWARD, budget);
 
         List<AbstractInsnNode> previousInsns = getInsns(previousLabel, range, BACKWARDS);
         List<AbstractInsnNode> nextInsns = getInsns(nextLabel, range, FORWARD);
 
-        return new InstructionMatcher(insn, previousInsns, nextInsns);
+        long windowHash = 31 * windows.before(previousLabel) + windows.after(nextLabel);
+        return new InstructionMatcher(insn, previousInsns, nextInsns, windowHash);
     }
 
     private static List<AbstractInsnNode> getInsns(AbstractInsnNode root, int range, UnaryOperator<AbstractInsnNode> operator) {
@@ -106,6 +134,21 @@ public class MethodCallAnalyzer {
             .toList();
     }
 
+    // Long label-free stretches of code make this linear in the method size for every call, so the instructions walked are charged
+    @Nullable
+    private static LabelNode findLabel(AbstractInsnNode insn, UnaryOperator<AbstractInsnNode> operator, AnalysisBudget.Tracker budget) {
+        int walked = 0;
+        for (AbstractInsnNode next = insn; next != null; next = operator.apply(next)) {
+            walked++;
+            if (next instanceof LabelNode label) {
+                budget.charge(walked);
+                return label;
+            }
+        }
+        budget.charge(walked);
+        return null;
+    }
+
     @SuppressWarnings("unchecked")
     @Nullable
     private static <T extends AbstractInsnNode> T findFirstInsn(AbstractInsnNode insn, Class<T> type, UnaryOperator<AbstractInsnNode> operator) {
@@ -119,13 +162,75 @@ public class MethodCallAnalyzer {
         return Type.getObjectType(insn.owner).getDescriptor() + insn.name + insn.desc;
     }
 
-    private static <T> int count(List<T> list, T item) {
-        return (int) list.stream().filter(item::equals).count();
+    // Fingerprints of the instruction windows following and preceding each instruction of a method, skipping frames and line numbers
+    private static final class InstructionWindows {
+        private static final long EMPTY_WINDOW = InsnComparator.windowFingerprint(List.of());
+
+        private final Object2IntMap<AbstractInsnNode> positions = new Object2IntOpenHashMap<>();
+        private final long[] forward;
+        private final long[] backward;
+
+        public InstructionWindows(MethodNode method, int range) {
+            List<AbstractInsnNode> insns = new ArrayList<>();
+            for (AbstractInsnNode insn : method.instructions) {
+                if (!(insn instanceof FrameNode) && !(insn instanceof LineNumberNode)) {
+                    this.positions.put(insn, insns.size());
+                    insns.add(insn);
+                }
+            }
+            this.forward = InsnComparator.windowFingerprints(insns, range);
+            this.backward = InsnComparator.windowFingerprints(Lists.reverse(insns), range);
+        }
+
+        public long after(@Nullable AbstractInsnNode start) {
+            return start != null ? this.forward[this.positions.getInt(start)] : EMPTY_WINDOW;
+        }
+
+        public long before(@Nullable AbstractInsnNode start) {
+            return start != null ? this.backward[this.backward.length - 1 - this.positions.getInt(start)] : EMPTY_WINDOW;
+        }
+    }
+
+    // Method calls in order of appearance, with the sorted positions of each call qualifier
+    record CallIndex(List<String> order, Map<String, int[]> positions) {
+        private static final int[] NO_POSITIONS = new int[0];
+
+        public static CallIndex create(MethodNode node) {
+            List<String> order = new ArrayList<>();
+            Map<String, IntList> positions = new HashMap<>();
+            for (AbstractInsnNode insn : node.instructions) {
+                if (insn instanceof MethodInsnNode minsn) {
+                    String qualifier = getCallQualifier(minsn);
+                    positions.computeIfAbsent(qualifier, q -> new IntArrayList()).add(order.size());
+                    order.add(qualifier);
+                }
+            }
+            Map<String, int[]> positionArrays = new HashMap<>(positions.size() * 2);
+            positions.forEach((qualifier, list) -> positionArrays.put(qualifier, list.toIntArray()));
+            return new CallIndex(order, positionArrays);
+        }
+
+        public int indexOf(String qualifier) {
+            int[] qualifierPositions = getPositions(qualifier);
+            return qualifierPositions.length > 0 ? qualifierPositions[0] : -1;
+        }
+
+        public int count(String qualifier) {
+            return getPositions(qualifier).length;
+        }
+
+        public String get(int index) {
+            return this.order.get(index);
+        }
+
+        private int[] getPositions(String qualifier) {
+            return this.positions.getOrDefault(qualifier, NO_POSITIONS);
+        }
     }
 
-    record InstructionMatcher(@TestOnly MethodInsnNode insn, List<AbstractInsnNode> before, List<AbstractInsnNode> after) {
+    record InstructionMatcher(@TestOnly MethodInsnNode insn, List<AbstractInsnNode> before, List<AbstractInsnNode> after, long windowHash) {
         @Nullable
-        public String findReplacement(List<String> cleanCallOrder, List<String> dirtyCallOrder) {
+        public String findReplacement(CallIndex cleanCallOrder, CallIndex dirtyCallOrder) {
             MethodInsnNode previousMethodCall = findFirstInsn(this.before.get(0), MethodInsnNode.class, BACKWARDS);
             if (previousMethodCall == null) {
                 return null;
@@ -135,8 +240,8 @@ public class MethodCallAnalyzer {
             if (previousCallIndex == -1) {
                 return null;
             }
-            int previousDirtyCount = count(dirtyCallOrder, previousCallQualifier);
-            if (previousDirtyCount < 1 || previousDirtyCount != count(cleanCallOrder, previousCallQualifier)) {
+            int previousDirtyCount = dirtyCallOrder.count(previousCallQualifier);
+            if (previousDirtyCount < 1 || previousDirtyCount != cleanCallOrder.count(previousCallQualifier)) {
                 return null;
             }
 
@@ -149,8 +254,8 @@ public class MethodCallAnalyzer {
             if (nextCallIndex == -1) {
                 return null;
             }
-            int nextDirtyCount = count(dirtyCallOrder, nextCallQualifier);
-            if (nextDirtyCount < 1 || nextDirtyCount != count(cleanCallOrder, nextCallQualifier)) {
+            int nextDirtyCount = dirtyCallOrder.count(nextCallQualifier);
+            if (nextDirtyCount < 1 || nextDirtyCount != cleanCallOrder.count(nextCallQualifier)) {
                 return null;
             }
 
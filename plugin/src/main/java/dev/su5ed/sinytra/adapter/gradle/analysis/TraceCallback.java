@@ -1,22 +1,21 @@
 package dev.su5ed.sinytra.adapter.gradle.analysis;
 
-import org.objectweb.asm.tree.ClassNode;
 import org.slf4j.Logger;
 
 public class TraceCallback {
     private final Logger logger;
-    private final ClassNode cleanNode;
+    private final String className;
 
     private boolean loggedHeader = false;
 
-    public TraceCallback(Logger logger, ClassNode cleanNode) {
+    public TraceCallback(Logger logger, String className) {
         this.logger = logger;
-        this.cleanNode = cleanNode;
+        this.className = className;
     }
 
     public void logHeader() {
         if (!this.loggedHeader) {
-            this.logger.info("Class {}", this.cleanNode.name);
+            this.logger.info("Class {}", this.className);
             this.loggedHeader = true;
         }
     }
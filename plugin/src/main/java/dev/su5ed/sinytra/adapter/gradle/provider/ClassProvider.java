@@ -8,6 +8,7 @@ import java.util.Optional;
 public interface ClassProvider {
     Optional<ClassNode> getClass(String name);
 
+    // Returns a fully parsed method, as callers inspect its local variables
     default Optional<MethodNode> findMethod(String owner, String name, String desc) {
         return getClass(owner).stream()
             .flatMap(cls -> cls.methods.stream())
@@ -0,0 +1,178 @@
+package dev.su5ed.sinytra.adapter.gradle.provider;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+// Read-only zip file mapped into memory, indexed once from its central directory and safe for concurrent access.
+// Stored entries are served as slices of the mapped file, deflated ones are inflated straight from it.
+public class MappedZipFile implements Closeable {
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int CENTRAL_DIRECTORY_ENTRY = 0x02014b50;
+    private static final int LOCAL_FILE_HEADER = 0x04034b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+    private static final int LOCAL_FILE_HEADER_SIZE = 30;
+    private static final int ZIP64_MAGIC = 0xFFFFFFFF;
+    private static final int METHOD_STORED = 0;
+    private static final int METHOD_DEFLATED = 8;
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    private record Entry(int method, int compressedSize, int size, int localHeaderOffset) {}
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    // Entries in central directory order
+    private final Map<String, Entry> entries;
+
+    public MappedZipFile(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = this.channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new ZipException("Zip file too large to map: " + path);
+            }
+            this.buffer = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+            this.entries = readCentralDirectory();
+        } catch (IOException | RuntimeException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    public Collection<String> getEntryNames() {
+        return this.entries.keySet();
+    }
+
+    public boolean hasEntry(String name) {
+        return this.entries.containsKey(name);
+    }
+
+    // Returns a read-only buffer of the entry's uncompressed contents, which is a slice of the mapped file for stored entries
+    @Nullable
+    public ByteBuffer getData(String name) throws IOException {
+        Entry entry = this.entries.get(name);
+        if (entry == null) {
+            return null;
+        }
+        ByteBuffer data = getRawData(name, entry);
+        return entry.method() == METHOD_STORED ? data : ByteBuffer.wrap(inflate(name, entry, data)).asReadOnlyBuffer();
+    }
+
+    @Nullable
+    public byte[] getBytes(String name) throws IOException {
+        Entry entry = this.entries.get(name);
+        if (entry == null) {
+            return null;
+        }
+        ByteBuffer data = getRawData(name, entry);
+        if (entry.method() == METHOD_STORED) {
+            byte[] bytes = new byte[entry.size()];
+            data.get(bytes);
+            return bytes;
+        }
+        return inflate(name, entry, data);
+    }
+
+    private ByteBuffer getRawData(String name, Entry entry) throws ZipException {
+        int offset = entry.localHeaderOffset();
+        if (this.buffer.getInt(offset) != LOCAL_FILE_HEADER) {
+            throw new ZipException("Invalid local header for entry " + name + " in " + this.path);
+        }
+        int nameLength = Short.toUnsignedInt(this.buffer.getShort(offset + 26));
+        int extraLength = Short.toUnsignedInt(this.buffer.getShort(offset + 28));
+        int start = offset + LOCAL_FILE_HEADER_SIZE + nameLength + extraLength;
+        // Absolute slices don't touch the shared buffer's position, keeping concurrent reads independent
+        return this.buffer.slice(start, entry.compressedSize()).asReadOnlyBuffer();
+    }
+
+    private byte[] inflate(String name, Entry entry, ByteBuffer data) throws ZipException {
+        if (entry.method() != METHOD_DEFLATED) {
+            throw new ZipException("Unsupported compression method " + entry.method() + " for entry " + name + " in " + this.path);
+        }
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(data);
+        byte[] bytes = new byte[entry.size()];
+        try {
+            int read = 0;
+            while (read < bytes.length) {
+                int count = inflater.inflate(bytes, read, bytes.length - read);
+                if (count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += count;
+            }
+            if (read != bytes.length) {
+                throw new ZipException("Truncated entry " + name + " in " + this.path);
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Invalid compressed data for entry " + name + " in " + this.path + ": " + e.getMessage());
+        }
+        return bytes;
+    }
+
+    private Map<String, Entry> readCentralDirectory() throws ZipException {
+        int end = findEndOfCentralDirectory();
+        int count = Short.toUnsignedInt(this.buffer.getShort(end + 10));
+        int offset = this.buffer.getInt(end + 16);
+        if (count == 0xFFFF || offset == ZIP64_MAGIC) {
+            throw new ZipException("Zip64 archives are not supported: " + this.path);
+        }
+        Map<String, Entry> entries = new LinkedHashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            if (this.buffer.getInt(offset) != CENTRAL_DIRECTORY_ENTRY) {
+                throw new ZipException("Invalid central directory entry at " + offset + " in " + this.path);
+            }
+            int method = Short.toUnsignedInt(this.buffer.getShort(offset + 10));
+            int compressedSize = this.buffer.getInt(offset + 20);
+            int size = this.buffer.getInt(offset + 24);
+            int nameLength = Short.toUnsignedInt(this.buffer.getShort(offset + 28));
+            int extraLength = Short.toUnsignedInt(this.buffer.getShort(offset + 30));
+            int commentLength = Short.toUnsignedInt(this.buffer.getShort(offset + 32));
+            int localHeaderOffset = this.buffer.getInt(offset + 42);
+            if (compressedSize == ZIP64_MAGIC || size == ZIP64_MAGIC || localHeaderOffset == ZIP64_MAGIC) {
+                throw new ZipException("Zip64 entries are not supported: " + this.path);
+            }
+            byte[] name = new byte[nameLength];
+            this.buffer.get(offset + 46, name);
+            entries.put(new String(name, StandardCharsets.UTF_8), new Entry(method, compressedSize, size, localHeaderOffset));
+            offset += 46 + nameLength + extraLength + commentLength;
+        }
+        return Collections.unmodifiableMap(entries);
+    }
+
+    private int findEndOfCentralDirectory() throws ZipException {
+        int limit = Math.max(0, this.buffer.capacity() - END_OF_CENTRAL_DIRECTORY_SIZE - 0xFFFF);
+        // The record is followed by a variable length comment, scan backwards for its signature
+        for (int i = this.buffer.capacity() - END_OF_CENTRAL_DIRECTORY_SIZE; i >= limit; i--) {
+            if (this.buffer.getInt(i) == END_OF_CENTRAL_DIRECTORY) {
+                return i;
+            }
+        }
+        throw new ZipException("Missing end of central directory in " + this.path);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+}
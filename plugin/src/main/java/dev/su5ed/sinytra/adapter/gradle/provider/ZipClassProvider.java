@@ -1,47 +1,55 @@
 package dev.su5ed.sinytra.adapter.gradle.provider;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.tree.ClassNode;
-import org.objectweb.asm.tree.MethodNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Optional;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipFile;
 
 public class ZipClassProvider implements ClassProvider {
     private static final Logger LOGGER = LoggerFactory.getLogger("ZipClassProvider");
-    
-    private final ZipFile zipFile;
-    private final Map<String, ClassNode> classCache = new HashMap<>();
+    private static final int DEFAULT_CACHE_SIZE = 4096;
 
-    public ZipClassProvider(ZipFile zipFile) {
+    private final MappedZipFile zipFile;
+    // Shared between analyzer threads. Concurrent lookups of the same class wait for a single parse.
+    // Missing classes are cached as empty to avoid repeated lookups.
+    private final LoadingCache<String, Optional<ClassNode>> classCache;
+
+    public ZipClassProvider(MappedZipFile zipFile) {
+        this(zipFile, DEFAULT_CACHE_SIZE);
+    }
+
+    public ZipClassProvider(MappedZipFile zipFile, int cacheSize) {
         this.zipFile = zipFile;
+        this.classCache = CacheBuilder.newBuilder()
+            .maximumSize(cacheSize)
+            .build(CacheLoader.from(this::readClass));
     }
 
     @Override
     public Optional<ClassNode> getClass(String name) {
-        ClassNode classNode = this.classCache.computeIfAbsent(name, str -> {
-            ZipEntry entry = this.zipFile.getEntry(str + ".class");
-            if (entry != null) {
-                ClassReader reader;
-                try (InputStream is = this.zipFile.getInputStream(entry)) {
-                    reader = new ClassReader(is);
-                } catch (IOException e) {
-                    LOGGER.error("Error getting class entry {}", str, e);
-                    return null;
-                }
-                ClassNode node = new ClassNode();
-                reader.accept(node, 0);
-                return node;
-            }
-            return null;
-        });
-        return Optional.ofNullable(classNode);
+        return this.classCache.getUnchecked(name);
+    }
+
+    private Optional<ClassNode> readClass(String name) {
+        byte[] data;
+        try {
+            data = this.zipFile.getBytes(name + ".class");
+        } catch (IOException e) {
+            LOGGER.error("Error getting class entry {}", name, e);
+            return Optional.empty();
+        }
+        if (data == null) {
+            return Optional.empty();
+        }
+        ClassReader reader = new ClassReader(data);
+        ClassNode node = new ClassNode();
+        reader.accept(node, 0);
+        return Optional.of(node);
     }
 }